@@ -0,0 +1,84 @@
+package com.example.eclass.benchmark;
+
+import com.example.eclass.dto.TeacherStats;
+import com.example.eclass.entity.Assignment;
+import com.example.eclass.entity.Submission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 儀表板上的計數、列表和搜索查詢。
+ * 計數直接調用服務方法，不經過 DashboardStatsService 的時間桶緩存，
+ * teacherStatsUncached 每次清空緩存，衡量聚合查詢本身。
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class DashboardQueryBenchmark {
+    
+    @Benchmark
+    public long countAllAssignments(JpaBenchmarkState state) {
+        return state.assignmentService.countAll();
+    }
+    
+    @Benchmark
+    public long countAssignmentsByTeacher(JpaBenchmarkState state) {
+        return state.assignmentService.countByTeacher(state.teacher);
+    }
+    
+    @Benchmark
+    public long countOverdueAssignments(JpaBenchmarkState state) {
+        return state.assignmentService.countOverdue();
+    }
+    
+    @Benchmark
+    public long countUpcomingAssignments(JpaBenchmarkState state) {
+        return state.assignmentService.countUpcoming();
+    }
+    
+    @Benchmark
+    public long countUngradedByTeacher(JpaBenchmarkState state) {
+        return state.submissionService.countUngradedByTeacher(state.teacher);
+    }
+    
+    @Benchmark
+    public long countSubmissionsByStudent(JpaBenchmarkState state) {
+        return state.submissionService.countByStudent(state.student);
+    }
+    
+    @Benchmark
+    public TeacherStats teacherStatsUncached(JpaBenchmarkState state) {
+        state.dashboardStatsService.evictAll();
+        return state.dashboardStatsService.getTeacherStats(state.teacher);
+    }
+    
+    @Benchmark
+    public List<Assignment> findAssignmentsByTeacher(JpaBenchmarkState state) {
+        return state.assignmentService.findByTeacher(state.teacher);
+    }
+    
+    @Benchmark
+    public List<Submission> findSubmissionsByTeacher(JpaBenchmarkState state) {
+        return state.submissionService.findByTeacher(state.teacher);
+    }
+    
+    @Benchmark
+    public List<Assignment> searchByTitle(JpaBenchmarkState state) {
+        return state.assignmentService.searchByTitle("數學");
+    }
+    
+    @Benchmark
+    public List<Assignment> fullTextSearch(JpaBenchmarkState state) {
+        return state.assignmentService.search("數學 作業", 0, 20);
+    }
+}
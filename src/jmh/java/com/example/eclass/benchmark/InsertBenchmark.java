@@ -0,0 +1,117 @@
+package com.example.eclass.benchmark;
+
+import com.example.eclass.EClassApplication;
+import com.example.eclass.entity.Assignment;
+import com.example.eclass.entity.Role;
+import com.example.eclass.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * JPA 插入吞吐量：每次調用在一個事務中 persist ROWS 個實體，每 FLUSH_SIZE 行 flush 並清空持久化上下文，
+ * 結果以行為單位 (rows/ms)。batchSize 設置 hibernate.jdbc.batch_size，為 1 時不使用 JDBC 批處理。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@OperationsPerInvocation(InsertBenchmark.ROWS)
+public class InsertBenchmark {
+    
+    static final int ROWS = 500;
+    private static final int FLUSH_SIZE = 50;
+    
+    @Benchmark
+    public void insertUsers(InsertState state) {
+        state.insert(i -> new User("bench_" + i, state.password, "基準測試用戶 " + i, "bench_" + i + "@bench.local",
+            Role.STUDENT));
+    }
+    
+    @Benchmark
+    public void insertAssignments(InsertState state) {
+        state.insert(i -> new Assignment("基準測試作業 " + i, "描述 " + i, LocalDateTime.now().plusDays(7),
+            state.entityManager.getReference(User.class, state.teacherId)));
+    }
+    
+    /**
+     * 只啟動應用和示例數據，不生成大規模數據；插入的行留在內存數據庫中，隨 fork 結束丟棄。
+     */
+    @State(Scope.Benchmark)
+    public static class InsertState {
+        
+        @Param({"1", "50"})
+        public int batchSize;
+        
+        ConfigurableApplicationContext context;
+        EntityManager entityManager;
+        TransactionTemplate transactionTemplate;
+        String password;
+        Long teacherId;
+        private int nextRow;
+        
+        @Setup(Level.Trial)
+        public void start() {
+            context = new SpringApplicationBuilder(EClassApplication.class)
+                .run(
+                    "--server.port=0",
+                    "--management.server.port=-1",
+                    "--spring.devtools.restart.enabled=false",
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.example.eclass=WARN",
+                    "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+            
+            // 與 @PersistenceContext 注入的相同：按當前事務綁定的共享 EntityManager
+            entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+            transactionTemplate = context.getBean(TransactionTemplate.class);
+            // 密碼只加密一次，只衡量插入本身
+            password = context.getBean(PasswordEncoder.class).encode("benchmark");
+            teacherId = transactionTemplate.execute(status -> {
+                User teacher = new User("bench_teacher", password, "基準測試老師", null, Role.TEACHER);
+                entityManager.persist(teacher);
+                return teacher.getId();
+            });
+        }
+        
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+        
+        void insert(IntFunction<Object> factory) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < ROWS; i++) {
+                    entityManager.persist(factory.apply(nextRow++));
+                    if ((i + 1) % FLUSH_SIZE == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+            });
+        }
+    }
+}
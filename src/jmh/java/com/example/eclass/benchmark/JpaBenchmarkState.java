@@ -0,0 +1,108 @@
+package com.example.eclass.benchmark;
+
+import com.example.eclass.EClassApplication;
+import com.example.eclass.entity.Assignment;
+import com.example.eclass.entity.Role;
+import com.example.eclass.entity.Submission;
+import com.example.eclass.entity.User;
+import com.example.eclass.service.AssignmentService;
+import com.example.eclass.service.DashboardStatsService;
+import com.example.eclass.service.SubmissionService;
+import com.example.eclass.service.UserService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 基準測試共用的應用上下文：在內存 H2 上啟動完整應用 (Vaadin 和安全配置依賴 Web 環境，服務器使用隨機端口)，
+ * 由 SyntheticDataGenerator 按 @Param 指定的規模生成數據，每個 fork 生成一次。
+ * 規模可以在命令行覆蓋，例如 -p students=20000。
+ */
+@State(Scope.Benchmark)
+public class JpaBenchmarkState {
+    
+    @Param("20")
+    public int teachers;
+    
+    @Param("2000")
+    public int students;
+    
+    @Param("20")
+    public int assignmentsPerTeacher;
+    
+    ConfigurableApplicationContext context;
+    
+    UserService userService;
+    AssignmentService assignmentService;
+    SubmissionService submissionService;
+    DashboardStatsService dashboardStatsService;
+    
+    User teacher;
+    User student;
+    Assignment assignment;
+    Submission submission;
+    
+    /** submitAssignment 使用的學生，依次向空白作業提交 */
+    List<User> submitters;
+    
+    private Assignment submitAssignment;
+    private int nextSubmitter;
+    
+    @Setup(Level.Trial)
+    public void start() {
+        // 以命令行參數傳入，優先於 application-synthetic-data.properties 中的默認規模
+        context = new SpringApplicationBuilder(EClassApplication.class)
+            .profiles("synthetic-data")
+            .run(
+                "--server.port=0",
+                "--management.server.port=-1",
+                "--spring.devtools.restart.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.eclass=WARN",
+                "--eclass.synthetic.teachers=" + teachers,
+                "--eclass.synthetic.students=" + students,
+                "--eclass.synthetic.assignments-per-teacher=" + assignmentsPerTeacher,
+                "--eclass.synthetic.content-median-chars=100");
+        
+        userService = context.getBean(UserService.class);
+        assignmentService = context.getBean(AssignmentService.class);
+        submissionService = context.getBean(SubmissionService.class);
+        dashboardStatsService = context.getBean(DashboardStatsService.class);
+        
+        teacher = userService.findByUsername("syn_teacher0001").orElseThrow();
+        student = userService.findByUsername("syn_student000001").orElseThrow();
+        submission = submissionService.findByStudent(student).get(0);
+        assignment = submission.getAssignment();
+        submitters = userService.findByRole(Role.STUDENT);
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    /**
+     * 下一個尚未提交過的 (作業, 學生) 組合；當前空白作業的學生用完後新建一個作業，
+     * 每 submitters.size() 次調用才發生一次。
+     */
+    synchronized SubmitTarget nextSubmitTarget() {
+        if (submitAssignment == null || nextSubmitter == submitters.size()) {
+            submitAssignment = assignmentService.createAssignment("基準測試作業", "submitAssignment 基準測試",
+                LocalDateTime.now().plusDays(7), teacher);
+            nextSubmitter = 0;
+        }
+        return new SubmitTarget(submitAssignment, submitters.get(nextSubmitter++));
+    }
+    
+    record SubmitTarget(Assignment assignment, User student) {
+    }
+}
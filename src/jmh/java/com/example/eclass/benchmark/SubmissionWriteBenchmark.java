@@ -0,0 +1,41 @@
+package com.example.eclass.benchmark;
+
+import com.example.eclass.entity.Submission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提交和評分的寫入路徑，每次調用是一個完整的服務層事務。
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class SubmissionWriteBenchmark {
+    
+    @Benchmark
+    public Submission submitAssignment(JpaBenchmarkState state) {
+        JpaBenchmarkState.SubmitTarget target = state.nextSubmitTarget();
+        return state.submissionService.submitAssignment(target.assignment(), target.student(), "基準測試提交內容");
+    }
+    
+    @Benchmark
+    public Submission updateSubmission(JpaBenchmarkState state) {
+        return state.submissionService.updateSubmission(state.assignment, state.student,
+            "更新內容 " + System.nanoTime());
+    }
+    
+    @Benchmark
+    public Submission gradeSubmission(JpaBenchmarkState state) {
+        int grade = (int) (System.nanoTime() % 101);
+        return state.submissionService.gradeSubmission(state.submission.getId(), grade, "基準測試評語");
+    }
+}
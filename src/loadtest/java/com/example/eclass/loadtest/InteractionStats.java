@@ -0,0 +1,71 @@
+package com.example.eclass.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * 一輪壓測中某一種交互的延遲樣本、失敗次數和 SQL 語句數。
+ */
+public class InteractionStats {
+    
+    private final String name;
+    private long[] latencies = new long[1024];
+    private int count;
+    private int errors;
+    private String firstError;
+    private long statements;
+    
+    public InteractionStats(String name) {
+        this.name = name;
+    }
+    
+    public synchronized void record(long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+    }
+    
+    public synchronized void recordError(Exception e) {
+        errors++;
+        if (firstError == null) {
+            firstError = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+    }
+    
+    public synchronized void setStatements(long statements) {
+        this.statements = statements;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public synchronized int getCount() {
+        return count;
+    }
+    
+    public synchronized int getErrors() {
+        return errors;
+    }
+    
+    public synchronized String getFirstError() {
+        return firstError;
+    }
+    
+    /** 成功和失敗的交互平均每次準備的 SQL 語句數 */
+    public synchronized double getStatementsPerInteraction() {
+        int attempts = count + errors;
+        return attempts == 0 ? 0 : (double) statements / attempts;
+    }
+    
+    /** 延遲百分位 (毫秒)，最近秩法 */
+    public synchronized double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count, rank) - 1)] / 1_000_000.0;
+    }
+}
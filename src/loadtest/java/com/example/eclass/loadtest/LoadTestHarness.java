@@ -0,0 +1,316 @@
+package com.example.eclass.loadtest;
+
+import com.example.eclass.EClassApplication;
+import com.example.eclass.entity.Role;
+import com.example.eclass.util.CsvWriter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Vaadin 會話並發壓測：在本進程內以隨機端口啟動應用 (synthetic-data profile 生成數據)，
+ * 每個虛擬用戶通過登錄表單登錄，打開自己角色的儀表板，並通過 UIDL 協議搜索、提交和評分，最後點擊登出。
+ * <pre>mvn -Ploadtest -DskipTests test-compile exec:exec -Dloadtest.args="users=100,1000 threads=100"</pre>
+ * 每個並發級別的所有會話同時保持打開，各交互按階段依次執行 (同一階段所有用戶做同一件事)，
+ * 請求由 threads 個工作線程發出。每種交互輸出延遲百分位和平均 SQL 語句數 (Hibernate 統計的階段差值除以次數)，
+ * 每個會話佔用的服務器堆內存取登出前後 (各自 GC 之後) 的堆使用量之差除以會話數，客戶端鏡像在兩次測量中都存在，互相抵消。
+ */
+public class LoadTestHarness {
+    
+    private static final String ADMIN_USERNAME = "admin";
+    private static final String ADMIN_PASSWORD = "admin123";
+    
+    private final Map<String, String> options;
+    private final int threads;
+    private final int teacherPercent;
+    private final int adminPercent;
+    
+    private ConfigurableApplicationContext context;
+    private Statistics statistics;
+    private HttpClient http;
+    private String baseUrl;
+    private String usernamePrefix;
+    private String syntheticPassword;
+    private int syntheticTeachers;
+    private int heartbeatSeconds;
+    
+    public LoadTestHarness(Map<String, String> options) {
+        this.options = options;
+        this.threads = Integer.parseInt(options.getOrDefault("threads", "100"));
+        this.teacherPercent = Integer.parseInt(options.getOrDefault("teacher-percent", "10"));
+        this.adminPercent = Integer.parseInt(options.getOrDefault("admin-percent", "2"));
+    }
+    
+    public static void main(String[] args) throws Exception {
+        // 參數形如 users=100,1000,5000 threads=100 result=target/loadtest-result.csv
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        int[] levels = Arrays.stream(options.getOrDefault("users", "100,1000,5000").split(","))
+            .mapToInt(level -> Integer.parseInt(level.trim()))
+            .toArray();
+        Path result = Path.of(options.getOrDefault("result", "target/loadtest-result.csv"));
+        
+        LoadTestHarness harness = new LoadTestHarness(options);
+        harness.start(Arrays.stream(levels).max().orElse(100));
+        try (CsvWriter csv = new CsvWriter(Files.newBufferedWriter(result, StandardCharsets.UTF_8))) {
+            csv.writeRecord(List.of("users", "interaction", "count", "errors", "p50_ms", "p90_ms", "p99_ms", "max_ms",
+                "sql_per_interaction", "heap_per_session_kb"));
+            for (int level : levels) {
+                harness.runLevel(level, csv);
+                csv.flush();
+            }
+        } finally {
+            harness.stop();
+        }
+        System.out.println("結果已寫入 " + result.toAbsolutePath());
+    }
+    
+    private void start(int maxUsers) {
+        syntheticTeachers = Integer.parseInt(options.getOrDefault("teachers", "50"));
+        // DevTools 的重啟會用 Spring 的參數重新調用 main，必須在啟動前用系統屬性關閉
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // 以命令行參數傳入，優先於 application-synthetic-data.properties 中的默認規模
+        context = new SpringApplicationBuilder(EClassApplication.class)
+            .profiles("synthetic-data")
+            .run(
+                "--server.port=0",
+                "--management.server.port=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.eclass=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--eclass.synthetic.teachers=" + syntheticTeachers,
+                "--eclass.synthetic.students=" + maxUsers,
+                "--eclass.synthetic.assignments-per-teacher=" + options.getOrDefault("assignments-per-teacher", "10"),
+                "--eclass.synthetic.content-median-chars=100");
+        
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        usernamePrefix = context.getEnvironment().getProperty("eclass.synthetic.username-prefix", "syn_");
+        syntheticPassword = context.getEnvironment().getProperty("eclass.synthetic.password", "synthetic123");
+        heartbeatSeconds = context.getEnvironment().getProperty("vaadin.heartbeatInterval", Integer.class, 300);
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+    }
+    
+    private void stop() {
+        context.close();
+    }
+    
+    private void runLevel(int userCount, CsvWriter csv) throws Exception {
+        List<VirtualUser> users = createUsers(userCount);
+        List<InteractionStats> results = new ArrayList<>();
+        System.out.printf("%n== %d 個並發會話 (學生 %d, 老師 %d, 管理員 %d), %d 個工作線程 ==%n", userCount,
+            count(users, Role.STUDENT), count(users, Role.TEACHER), count(users, Role.ADMIN), threads);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        // 像瀏覽器一樣定時發送心跳，否則在大級別下早打開的 UI 會在後面的階段之前被服務器關閉
+        ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor();
+        heartbeats.scheduleWithFixedDelay(() -> users.forEach(user -> {
+            try {
+                user.client.heartbeat();
+            } catch (Exception e) {
+                user.failed = true;
+            }
+        }), heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        try {
+            results.add(runPhase(executor, "login", users, user -> true,
+                user -> user.client.login(user.username, user.password)));
+            results.add(runPhase(executor, "open-dashboard", users, user -> true,
+                user -> user.client.open(user.route())));
+            
+            results.add(runPhase(executor, "student-search", users, user -> user.role == Role.STUDENT,
+                user -> user.client.setValue(user.client.field("vaadin-text-field", "搜索作業標題或描述..."), "數學")));
+            results.add(runPhase(executor, "student-open-submit", users, user -> user.role == Role.STUDENT,
+                user -> user.client.click(user.client.findButton("提交作業", "重新提交")
+                    .orElseThrow(() -> new IllegalStateException("第一頁作業中沒有可提交的作業")))));
+            results.add(runPhase(executor, "student-submit", users, user -> user.role == Role.STUDENT, user -> {
+                user.client.fillAndClick(user.client.field("vaadin-text-area", "作業內容"),
+                    "壓測提交內容 " + user.username, user.client.button("提交"));
+                expectNotification(user, "作業提交成功");
+            }));
+            
+            results.add(runPhase(executor, "teacher-open-grade", users, user -> user.role == Role.TEACHER,
+                user -> user.client.click(user.client.findButton("評分", "重新評分")
+                    .orElseThrow(() -> new IllegalStateException("第一頁提交中沒有可評分的提交")))));
+            results.add(runPhase(executor, "teacher-grade", users, user -> user.role == Role.TEACHER, user -> {
+                user.client.fillAndClick(user.client.field("vaadin-text-field", "分數 (0-100)"),
+                    String.valueOf(Math.floorMod(user.username.hashCode(), 101)), user.client.button("保存評分"));
+                expectNotification(user, "評分保存成功");
+            }));
+            
+            results.add(runPhase(executor, "admin-search", users, user -> user.role == Role.ADMIN,
+                user -> user.client.setValue(user.client.field("vaadin-text-field", "搜索用戶..."), usernamePrefix + "student00")));
+            
+            long heapWithSessions = usedHeapAfterGc();
+            InteractionStats logout = runPhase(executor, "logout", users, user -> true,
+                user -> user.client.logout());
+            results.add(logout);
+            long heapWithoutSessions = usedHeapAfterGc();
+            // 前面失敗的用戶不參與登出，只按實際登出的會話數平均
+            long heapPerSessionKb = logout.getCount() == 0 ? 0
+                : Math.max(0, heapWithSessions - heapWithoutSessions) / logout.getCount() / 1024;
+            
+            printReport(results, heapWithSessions, heapWithoutSessions, heapPerSessionKb);
+            for (InteractionStats stats : results) {
+                csv.writeRecord(List.of(userCount, stats.getName(), stats.getCount(), stats.getErrors(),
+                    format(stats.percentileMillis(50)), format(stats.percentileMillis(90)),
+                    format(stats.percentileMillis(99)), format(stats.percentileMillis(100)),
+                    format(stats.getStatementsPerInteraction()), heapPerSessionKb));
+            }
+        } finally {
+            heartbeats.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+    
+    private List<VirtualUser> createUsers(int userCount) {
+        int admins = userCount * adminPercent / 100;
+        int teachers = userCount * teacherPercent / 100;
+        List<VirtualUser> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            UidlClient client = new UidlClient(http, baseUrl);
+            if (i < admins) {
+                // 只有一個管理員賬戶，每個虛擬用戶各自一個會話
+                users.add(new VirtualUser(Role.ADMIN, ADMIN_USERNAME, ADMIN_PASSWORD, client));
+            } else if (i < admins + teachers) {
+                // 老師賬戶按序號輪流分配，同一老師可能有多個會話
+                String username = String.format("%steacher%04d", usernamePrefix, (i - admins) % syntheticTeachers + 1);
+                users.add(new VirtualUser(Role.TEACHER, username, syntheticPassword, client));
+            } else {
+                String username = String.format("%sstudent%06d", usernamePrefix, i - admins - teachers + 1);
+                users.add(new VirtualUser(Role.STUDENT, username, syntheticPassword, client));
+            }
+        }
+        return users;
+    }
+    
+    /**
+     * 讓符合條件且前面各階段沒有失敗的用戶各執行一次交互，返回該階段的統計。
+     * 階段內只有這一種交互，Hibernate 準備語句計數的差值就是這些交互產生的 SQL。
+     */
+    private InteractionStats runPhase(ExecutorService executor, String name, List<VirtualUser> users,
+                                      Predicate<VirtualUser> participates, Interaction interaction) throws Exception {
+        InteractionStats stats = new InteractionStats(name);
+        long statementsBefore = statistics.getPrepareStatementCount();
+        List<Future<?>> futures = new ArrayList<>();
+        for (VirtualUser user : users) {
+            if (user.failed || !participates.test(user)) {
+                continue;
+            }
+            futures.add(executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    interaction.run(user);
+                    stats.record(System.nanoTime() - start);
+                } catch (Exception e) {
+                    user.failed = true;
+                    stats.recordError(e);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        stats.setStatements(statistics.getPrepareStatementCount() - statementsBefore);
+        return stats;
+    }
+    
+    private static void expectNotification(VirtualUser user, String expected) {
+        String notification = user.client.lastNotification();
+        if (!notification.contains(expected)) {
+            throw new IllegalStateException("操作未成功: " + notification);
+        }
+    }
+    
+    private static long usedHeapAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            memory.gc();
+            Thread.sleep(200);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+    
+    private static void printReport(List<InteractionStats> results, long heapWithSessions, long heapWithoutSessions,
+                                    long heapPerSessionKb) {
+        System.out.printf("%-20s %7s %6s %9s %9s %9s %9s %8s%n",
+            "交互", "次數", "失敗", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)", "SQL/次");
+        for (InteractionStats stats : results) {
+            System.out.printf("%-20s %7d %6d %9.1f %9.1f %9.1f %9.1f %8.1f%n", stats.getName(), stats.getCount(),
+                stats.getErrors(), stats.percentileMillis(50), stats.percentileMillis(90), stats.percentileMillis(99),
+                stats.percentileMillis(100), stats.getStatementsPerInteraction());
+            if (stats.getFirstError() != null) {
+                System.out.println("    首個錯誤: " + stats.getFirstError());
+            }
+        }
+        System.out.printf("堆內存: 會話打開時 %d MB, 登出後 %d MB, 每個會話約 %d KB%n",
+            heapWithSessions / (1024 * 1024), heapWithoutSessions / (1024 * 1024), heapPerSessionKb);
+    }
+    
+    private static long count(List<VirtualUser> users, Role role) {
+        return users.stream().filter(user -> user.role == role).count();
+    }
+    
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+    
+    @FunctionalInterface
+    private interface Interaction {
+        void run(VirtualUser user) throws IOException, InterruptedException;
+    }
+    
+    private static class VirtualUser {
+        
+        final Role role;
+        final String username;
+        final String password;
+        final UidlClient client;
+        volatile boolean failed;
+        
+        VirtualUser(Role role, String username, String password, UidlClient client) {
+            this.role = role;
+            this.username = username;
+            this.password = password;
+            this.client = client;
+        }
+        
+        String route() {
+            return switch (role) {
+                case ADMIN -> "admin";
+                case TEACHER -> "teacher";
+                case STUDENT -> "student";
+            };
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.example.eclass.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.vaadin.flow.internal.nodefeature.NodeFeatures;
+import com.vaadin.flow.shared.ApplicationConstants;
+import com.vaadin.flow.shared.JsonConstants;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 一個虛擬用戶的瀏覽器端：通過登錄表單取得會話，之後像 Flow 客戶端一樣收發 UIDL 消息。
+ * 只鏡像查找組件所需的那部分狀態樹 (標籤、屬性、文本和子節點)，不執行服務器下發的 JavaScript。
+ * 所有虛擬用戶共用一個 HttpClient，Cookie 由每個實例自己保存。
+ */
+public class UidlClient {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    /** 服務器在 UIDL 響應前加的防 JSON 劫持前綴 */
+    private static final String UIDL_PREFIX = "for(;;);";
+    
+    private static final Pattern CSRF_PARAMETER = Pattern.compile("<meta name=\"_csrf_parameter\" content=\"([^\"]*)\"");
+    private static final Pattern CSRF_TOKEN = Pattern.compile("<meta name=\"_csrf\" content=\"([^\"]*)\"");
+    
+    /** UI 根節點 (body) 的 ID，初始化響應中不會單獨 attach */
+    private static final int ROOT_NODE_ID = 1;
+    
+    /** Grid 首次渲染時客戶端請求的行數 (vaadin-grid 默認 pageSize) */
+    private static final int GRID_PAGE_SIZE = 50;
+    
+    private final HttpClient http;
+    private final String baseUrl;
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+    private final Map<Integer, Node> nodes = new HashMap<>();
+    
+    private String csrfToken;
+    private boolean uiOpen;
+    private int uiId;
+    private int syncId;
+    private int clientId;
+    
+    public UidlClient(HttpClient http, String baseUrl) {
+        this.http = http;
+        this.baseUrl = baseUrl;
+    }
+    
+    /**
+     * 提交登錄表單 (LoginForm 的 action 是 "login")，成功時 Spring Security 重定向到非登錄頁的地址。
+     * 表單帶上登錄頁 meta 標籤中的 CSRF token，與瀏覽器中 vaadin-login-form 的做法一致。
+     */
+    public synchronized void login(String username, String password) throws IOException, InterruptedException {
+        String page = get("/login").body();
+        Matcher parameter = CSRF_PARAMETER.matcher(page);
+        Matcher token = CSRF_TOKEN.matcher(page);
+        String form = "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+            + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8);
+        if (parameter.find() && token.find()) {
+            form += "&" + parameter.group(1) + "=" + URLEncoder.encode(token.group(1), StandardCharsets.UTF_8);
+        }
+        HttpResponse<String> response = send(request("/login")
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form)));
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != 302 || location.contains("/login")) {
+            throw new IllegalStateException("登錄失敗: " + username + " (" + response.statusCode() + " " + location + ")");
+        }
+    }
+    
+    /**
+     * 打開路由，步驟與瀏覽器中的 Flow.js 相同：v-r=init 請求創建 UI，再調用根節點的 connectClient 導航到路由，
+     * 最後像 vaadin-grid 渲染時那樣為頁面上的每個 Grid 請求第一頁數據。
+     */
+    public synchronized void open(String route) throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/?" + ApplicationConstants.REQUEST_TYPE_PARAMETER + "="
+            + ApplicationConstants.REQUEST_TYPE_INIT + "&" + ApplicationConstants.REQUEST_LOCATION_PARAMETER + "="
+            + URLEncoder.encode(route, StandardCharsets.UTF_8) + "&" + ApplicationConstants.REQUEST_QUERY_PARAMETER + "=");
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("打開頁面失敗: " + route + " (" + response.statusCode() + ")");
+        }
+        JsonNode appConfig = MAPPER.readTree(response.body()).path("appConfig");
+        JsonNode uidl = appConfig.path("uidl");
+        if (uidl.isMissingNode()) {
+            throw new IllegalStateException("初始化響應中沒有 UIDL: " + route);
+        }
+        nodes.clear();
+        nodes.put(ROOT_NODE_ID, new Node(ROOT_NODE_ID));
+        uiId = appConfig.path(ApplicationConstants.UI_ID_PARAMETER).asInt();
+        csrfToken = uidl.path(ApplicationConstants.UIDL_SECURITY_TOKEN_ID).asText(ApplicationConstants.CSRF_TOKEN_DEFAULT_VALUE);
+        syncId = -1;
+        clientId = 0;
+        uiOpen = true;
+        apply(uidl);
+        // Flow.js: flowRoot.$server.connectClient(path, query, appShellTitle, history.state, navigationTrigger)
+        send(List.of(serverCall(ROOT_NODE_ID, "connectClient",
+            MAPPER.createArrayNode().add(route).add("").add("").addNull().add(""))));
+        
+        List<ObjectNode> rpcs = new ArrayList<>();
+        for (Node grid : findAll("vaadin-grid")) {
+            rpcs.add(requestRange(grid, 0, GRID_PAGE_SIZE));
+        }
+        if (!rpcs.isEmpty()) {
+            send(rpcs);
+        }
+    }
+    
+    /** 點擊組件 (DOM click 事件，事件數據與瀏覽器端 ClickEvent 需要的字段一致) */
+    public synchronized void click(Node node) throws IOException, InterruptedException {
+        send(List.of(clickEvent(node)));
+    }
+    
+    /** 點擊頁頭的登出按鈕，會話在這個請求中失效，服務器以 sessionExpired 回應 */
+    public synchronized void logout() throws IOException, InterruptedException {
+        JsonNode uidl = exchange(List.of(clickEvent(button("登出"))));
+        uiOpen = false;
+        if (!uidl.path("meta").path(JsonConstants.META_SESSION_EXPIRED).asBoolean()) {
+            throw new IllegalStateException("登出後會話仍然有效");
+        }
+    }
+    
+    /**
+     * 瀏覽器每隔 heartbeatInterval 秒發送一次心跳，服務器會關閉連續三個間隔沒有心跳的 UI (普通 UIDL 請求不算心跳)。
+     */
+    public synchronized void heartbeat() throws IOException, InterruptedException {
+        if (!uiOpen) {
+            return;
+        }
+        HttpResponse<String> response = send(request("/?" + ApplicationConstants.REQUEST_TYPE_PARAMETER + "="
+            + ApplicationConstants.REQUEST_TYPE_HEARTBEAT + "&" + ApplicationConstants.UI_ID_PARAMETER + "=" + uiId)
+            .POST(HttpRequest.BodyPublishers.noBody()));
+        if (response.statusCode() != 200) {
+            uiOpen = false;
+            throw new IllegalStateException("心跳失敗 (" + response.statusCode() + ")");
+        }
+    }
+    
+    /** 修改字段值後點擊按鈕，瀏覽器中字段失焦時的屬性同步和點擊會在同一個請求裡發出 */
+    public synchronized void fillAndClick(Node field, String value, Node button) throws IOException, InterruptedException {
+        send(List.of(propertySync(field, "value", value), clickEvent(button)));
+    }
+    
+    /** 修改字段值 (ValueChangeMode.ON_CHANGE 的字段在 change 事件時同步 value 屬性) */
+    public synchronized void setValue(Node field, String value) throws IOException, InterruptedException {
+        send(List.of(propertySync(field, "value", value)));
+    }
+    
+    public List<Node> findAll(String tag) {
+        return nodes.values().stream()
+            .filter(node -> tag.equals(node.tag))
+            .sorted(Comparator.comparingInt(node -> node.id))
+            .collect(Collectors.toList());
+    }
+    
+    /** 按文本查找按鈕，有多個時取最早創建的一個 */
+    public Node button(String text) {
+        return findAll("vaadin-button").stream()
+            .filter(node -> text.equals(textOf(node).trim()))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("找不到按鈕: " + text));
+    }
+    
+    public Optional<Node> findButton(String... texts) {
+        for (String text : texts) {
+            Optional<Node> button = findAll("vaadin-button").stream()
+                .filter(node -> text.equals(textOf(node).trim()))
+                .findFirst();
+            if (button.isPresent()) {
+                return button;
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /** 按 label 或 placeholder 查找輸入字段 */
+    public Node field(String tag, String labelOrPlaceholder) {
+        return findAll(tag).stream()
+            .filter(node -> labelOrPlaceholder.equals(node.property("label"))
+                || labelOrPlaceholder.equals(node.property("placeholder")))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("找不到字段: " + labelOrPlaceholder));
+    }
+    
+    /** 最近一條通知的文本，沒有通知時為空 */
+    public String lastNotification() {
+        List<Node> notifications = findAll("vaadin-notification");
+        return notifications.isEmpty() ? "" : String.valueOf(notifications.get(notifications.size() - 1).property("text"));
+    }
+    
+    /** 當前鏡像的節點數，大致反映頁面的組件規模 */
+    public int nodeCount() {
+        return nodes.size();
+    }
+    
+    private String textOf(Node node) {
+        StringBuilder text = new StringBuilder();
+        if (node.text != null) {
+            text.append(node.text);
+        }
+        for (Integer childId : node.children) {
+            Node child = nodes.get(childId);
+            if (child != null) {
+                text.append(textOf(child));
+            }
+        }
+        return text.toString();
+    }
+    
+    private ObjectNode clickEvent(Node node) {
+        ObjectNode data = MAPPER.createObjectNode();
+        for (String key : new String[]{"event.screenX", "event.screenY", "event.clientX", "event.clientY",
+                "event.detail", "event.button"}) {
+            data.put(key, 0);
+        }
+        data.put("event.detail", 1);
+        for (String key : new String[]{"event.ctrlKey", "event.shiftKey", "event.altKey", "event.metaKey"}) {
+            data.put(key, false);
+        }
+        ObjectNode rpc = MAPPER.createObjectNode();
+        rpc.put(JsonConstants.RPC_TYPE, JsonConstants.RPC_TYPE_EVENT);
+        rpc.put(JsonConstants.RPC_NODE, node.id);
+        rpc.put(JsonConstants.RPC_EVENT_TYPE, "click");
+        rpc.set(JsonConstants.RPC_EVENT_DATA, data);
+        return rpc;
+    }
+    
+    private ObjectNode propertySync(Node node, String property, String value) {
+        ObjectNode rpc = MAPPER.createObjectNode();
+        rpc.put(JsonConstants.RPC_TYPE, JsonConstants.RPC_TYPE_MAP_SYNC);
+        rpc.put(JsonConstants.RPC_NODE, node.id);
+        rpc.put(JsonConstants.RPC_FEATURE, NodeFeatures.ELEMENT_PROPERTIES);
+        rpc.put(JsonConstants.RPC_PROPERTY, property);
+        rpc.put(JsonConstants.RPC_PROPERTY_VALUE, value);
+        return rpc;
+    }
+    
+    /** gridConnector.js 中的 grid.$server.setRequestedRange(firstIndex, size) */
+    private ObjectNode requestRange(Node grid, int firstIndex, int size) {
+        return serverCall(grid.id, "setRequestedRange", MAPPER.createArrayNode().add(firstIndex).add(size));
+    }
+    
+    /** 調用 @ClientCallable 方法 (客戶端的 element.$server.method(...))，不等待返回值 */
+    private ObjectNode serverCall(int nodeId, String method, ArrayNode args) {
+        ObjectNode rpc = MAPPER.createObjectNode();
+        rpc.put(JsonConstants.RPC_TYPE, JsonConstants.RPC_PUBLISHED_SERVER_EVENT_HANDLER);
+        rpc.put(JsonConstants.RPC_NODE, nodeId);
+        rpc.put(JsonConstants.RPC_TEMPLATE_EVENT_METHOD_NAME, method);
+        rpc.set(JsonConstants.RPC_TEMPLATE_EVENT_ARGS, args);
+        return rpc;
+    }
+    
+    private void send(List<ObjectNode> rpcs) throws IOException, InterruptedException {
+        JsonNode uidl = exchange(rpcs);
+        JsonNode meta = uidl.path("meta");
+        if (meta.path(JsonConstants.META_SESSION_EXPIRED).asBoolean() || meta.has("appError")) {
+            throw new IllegalStateException("服務器返回錯誤: " + abbreviate(meta.toString()));
+        }
+        if (uidl.path(ApplicationConstants.RESYNCHRONIZE_ID).asBoolean()) {
+            throw new IllegalStateException("客戶端與服務器狀態不同步");
+        }
+        apply(uidl);
+    }
+    
+    private JsonNode exchange(List<ObjectNode> rpcs) throws IOException, InterruptedException {
+        ObjectNode message = MAPPER.createObjectNode();
+        message.put(ApplicationConstants.CSRF_TOKEN, csrfToken);
+        ArrayNode invocations = message.putArray(ApplicationConstants.RPC_INVOCATIONS);
+        rpcs.forEach(invocations::add);
+        message.put(ApplicationConstants.SERVER_SYNC_ID, syncId);
+        message.put(ApplicationConstants.CLIENT_TO_SERVER_ID, clientId);
+        
+        HttpResponse<String> response = send(request("/?" + ApplicationConstants.REQUEST_TYPE_PARAMETER + "="
+            + ApplicationConstants.REQUEST_TYPE_UIDL + "&" + ApplicationConstants.UI_ID_PARAMETER + "=" + uiId)
+            .header("Content-Type", JsonConstants.JSON_CONTENT_TYPE)
+            .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(message))));
+        String body = response.body();
+        if (response.statusCode() != 200 || !body.startsWith(UIDL_PREFIX)) {
+            throw new IllegalStateException("UIDL 請求失敗 (" + response.statusCode() + "): " + abbreviate(body));
+        }
+        JsonNode uidl = MAPPER.readTree(body.substring(UIDL_PREFIX.length()));
+        return uidl.isArray() ? uidl.get(0) : uidl;
+    }
+    
+    private void apply(JsonNode uidl) {
+        if (uidl.has(ApplicationConstants.SERVER_SYNC_ID)) {
+            syncId = uidl.get(ApplicationConstants.SERVER_SYNC_ID).asInt();
+        }
+        if (uidl.has(ApplicationConstants.CLIENT_TO_SERVER_ID)) {
+            clientId = uidl.get(ApplicationConstants.CLIENT_TO_SERVER_ID).asInt();
+        }
+        if (uidl.has(ApplicationConstants.UIDL_SECURITY_TOKEN_ID)) {
+            csrfToken = uidl.get(ApplicationConstants.UIDL_SECURITY_TOKEN_ID).asText();
+        }
+        for (JsonNode change : uidl.path("changes")) {
+            applyChange(change);
+        }
+    }
+    
+    private void applyChange(JsonNode change) {
+        int id = change.path(JsonConstants.CHANGE_NODE).asInt();
+        String type = change.path(JsonConstants.CHANGE_TYPE).asText();
+        if (JsonConstants.CHANGE_TYPE_ATTACH.equals(type)) {
+            nodes.put(id, new Node(id));
+            return;
+        }
+        if (JsonConstants.CHANGE_TYPE_DETACH.equals(type)) {
+            nodes.remove(id);
+            return;
+        }
+        Node node = nodes.get(id);
+        if (node == null) {
+            return;
+        }
+        int feature = change.path(JsonConstants.CHANGE_FEATURE).asInt();
+        String key = change.path(JsonConstants.CHANGE_MAP_KEY).asText();
+        switch (type) {
+            case JsonConstants.CHANGE_TYPE_PUT -> {
+                JsonNode value = change.path(JsonConstants.CHANGE_PUT_VALUE);
+                if (feature == NodeFeatures.ELEMENT_DATA && "tag".equals(key)) {
+                    node.tag = value.asText();
+                } else if (feature == NodeFeatures.TEXT_NODE) {
+                    node.text = value.asText();
+                } else if (feature == NodeFeatures.ELEMENT_PROPERTIES) {
+                    node.properties.put(key, value.isValueNode() ? value.asText() : value);
+                }
+            }
+            case JsonConstants.CHANGE_TYPE_REMOVE -> {
+                if (feature == NodeFeatures.ELEMENT_PROPERTIES) {
+                    node.properties.remove(key);
+                }
+            }
+            case JsonConstants.CHANGE_TYPE_SPLICE -> {
+                if (feature == NodeFeatures.ELEMENT_CHILDREN || feature == NodeFeatures.VIRTUAL_CHILDREN) {
+                    List<Integer> list = feature == NodeFeatures.ELEMENT_CHILDREN ? node.children : node.virtualChildren;
+                    int index = change.path(JsonConstants.CHANGE_SPLICE_INDEX).asInt();
+                    int remove = change.path(JsonConstants.CHANGE_SPLICE_REMOVE).asInt();
+                    for (int i = 0; i < remove && index < list.size(); i++) {
+                        list.remove(index);
+                    }
+                    int insertAt = Math.min(index, list.size());
+                    for (JsonNode added : change.path(JsonConstants.CHANGE_SPLICE_ADD_NODES)) {
+                        list.add(insertAt++, added.asInt());
+                    }
+                }
+            }
+            case JsonConstants.CHANGE_TYPE_CLEAR -> {
+                if (feature == NodeFeatures.ELEMENT_CHILDREN) {
+                    node.children.clear();
+                } else if (feature == NodeFeatures.VIRTUAL_CHILDREN) {
+                    node.virtualChildren.clear();
+                } else if (feature == NodeFeatures.ELEMENT_PROPERTIES) {
+                    node.properties.clear();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+    
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return send(request(path).GET());
+    }
+    
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path));
+        if (!cookies.isEmpty()) {
+            builder.header("Cookie", cookies.entrySet().stream()
+                .map(cookie -> cookie.getKey() + "=" + cookie.getValue())
+                .collect(Collectors.joining("; ")));
+        }
+        return builder;
+    }
+    
+    private HttpResponse<String> send(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(builder.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        // 登錄後 Spring Security 會更換會話 ID，這裡跟隨 Set-Cookie 更新
+        for (String header : response.headers().allValues("Set-Cookie")) {
+            String pair = header.split(";", 2)[0];
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                cookies.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+            }
+        }
+        return response;
+    }
+    
+    private static String abbreviate(String text) {
+        return text.length() > 300 ? text.substring(0, 300) + "..." : text;
+    }
+    
+    /** 鏡像狀態樹中的一個節點 */
+    public static class Node {
+        
+        final int id;
+        String tag;
+        String text;
+        final Map<String, Object> properties = new HashMap<>();
+        final List<Integer> children = new ArrayList<>();
+        final List<Integer> virtualChildren = new ArrayList<>();
+        
+        Node(int id) {
+            this.id = id;
+        }
+        
+        Object property(String name) {
+            return properties.get(name);
+        }
+        
+        @Override
+        public String toString() {
+            return tag + "#" + id;
+        }
+    }
+}
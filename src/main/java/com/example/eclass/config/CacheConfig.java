@@ -0,0 +1,62 @@
+package com.example.eclass.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate 二級緩存配置 (JCache + Caffeine)。
+ * 每個緩存區域都有容量上限和寫入後過期時間；未在此聲明的區域會導致啟動失敗，避免出現無界緩存。
+ */
+@Configuration
+public class CacheConfig {
+    
+    /** User 實體 */
+    public static final String USERS_REGION = "users";
+    /** username -> User 主鍵的自然鍵緩存 */
+    public static final String USERS_BY_USERNAME_REGION = "users-by-username";
+    /** Assignment 實體 */
+    public static final String ASSIGNMENTS_REGION = "assignments";
+    
+    private static final List<String> REGIONS = List.of(USERS_REGION, USERS_BY_USERNAME_REGION, ASSIGNMENTS_REGION);
+    
+    @Value("${eclass.cache.entity-max-size:10000}")
+    private long maxSize;
+    
+    @Value("${eclass.cache.entity-ttl-seconds:600}")
+    private long ttlSeconds;
+    
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+        for (String region : REGIONS) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+            configuration.setStatisticsEnabled(true);
+            if (cacheManager.getCache(region) == null) {
+                cacheManager.createCache(region, configuration);
+            }
+        }
+        return cacheManager;
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+}
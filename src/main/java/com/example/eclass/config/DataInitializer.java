@@ -7,11 +7,14 @@ import com.example.eclass.service.AssignmentService;
 import com.example.eclass.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class DataInitializer implements CommandLineRunner {
     
     @Autowired
@@ -22,6 +25,12 @@ public class DataInitializer implements CommandLineRunner {
     
     @Override
     public void run(String... args) throws Exception {
+        // 持久化數據庫重啟時已有數據，一條查詢確認後直接跳過初始化
+        if (userService.countAll() > 0) {
+            System.out.println("數據庫已有用戶，跳過初始化數據");
+            return;
+        }
+        
         // 創建默認管理員賬戶
         if (!userService.existsByUsername("admin")) {
             userService.createUser("admin", "admin123", "系統管理員", "admin@eclass.com", Role.ADMIN);
@@ -0,0 +1,73 @@
+package com.example.eclass.config;
+
+import com.example.eclass.metrics.ServiceMetricsInterceptor;
+import com.example.eclass.metrics.SlowQueryLog;
+import com.example.eclass.metrics.SqlCaptureDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 服務層計時、SQL 語句計數和慢查詢日誌。倉庫調用、Hikari 連接池、Hibernate 統計和 HTTP 請求的指標由 Actuator 自動配置，
+ * 所有指標通過 /actuator/prometheus 導出 (見 application.properties 中的 management.*)。
+ */
+@Configuration
+public class MetricsConfig {
+    
+    private static final String SERVICE_PACKAGE = "com.example.eclass.service";
+    
+    /** 應用使用的 DataSource (默認的 Hikari 連接池，replica profile 下是讀寫路由) */
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+    
+    /**
+     * service 包中 @Service 類的每個公開方法都經過計時攔截器。
+     * 以基礎設施角色註冊，由處理 @Transactional 的自動代理創建器一併應用；順序在事務攔截器之外，耗時包含提交。
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceMetricsAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationClassFilter(Service.class, true))
+            .intersection(clazz -> clazz.getPackageName().equals(SERVICE_PACKAGE))
+            .intersection(new StaticMethodMatcher() {
+                @Override
+                public boolean matches(Method method, Class<?> targetClass) {
+                    return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+                }
+            });
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new ServiceMetricsInterceptor(meterRegistry));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+    
+    /**
+     * 用 SqlCaptureDataSource 包裝應用的 DataSource。SQL 語句計數 (SqlStatementCounter) 和慢查詢日誌都由它上報，
+     * Hibernate 和 JdbcTemplate 的語句只經過這一層攔截。
+     */
+    @Bean
+    public static BeanPostProcessor sqlCaptureDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource dataSource) {
+                    return new SqlCaptureDataSource(dataSource, slowQueryLog);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.eclass.config;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+/**
+ * prod profile 的啟動檢查。
+ * Spring Boot 綁定 spring.datasource.password 時會把無法解析的 ${ECLASS_DB_PASSWORD} 原樣當作密碼，
+ * 不會報錯；這裡在創建任何 Bean (包括連接池和 Flyway) 之前檢查環境變量，未設置時啟動失敗。
+ */
+@Configuration
+@Profile("prod")
+public class ProdEnvironmentConfig {
+    
+    private static final String DB_PASSWORD_VARIABLE = "ECLASS_DB_PASSWORD";
+    
+    @Bean
+    public static BeanFactoryPostProcessor requireDatabasePassword(Environment environment) {
+        return beanFactory -> {
+            if (!StringUtils.hasText(environment.getProperty(DB_PASSWORD_VARIABLE))) {
+                throw new IllegalStateException("prod profile 需要通過環境變量 " + DB_PASSWORD_VARIABLE + " 設置數據庫密碼");
+            }
+        };
+    }
+}
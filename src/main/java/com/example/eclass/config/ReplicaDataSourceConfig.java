@@ -0,0 +1,144 @@
+package com.example.eclass.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 讀寫分離數據源，以 replica profile 啟動時生效：
+ * <pre>mvn spring-boot:run -Dspring-boot.run.profiles=replica</pre>
+ * 只讀事務 (@Transactional(readOnly = true)) 的連接取自 eclass.datasource.replica.* 配置的從庫連接池，
+ * 其餘事務和事務外的訪問使用 spring.datasource.* 配置的主庫連接池，Flyway 只在主庫上執行。
+ * <p>
+ * 事務管理器在事務開始時就會獲取連接，而只讀標記要到開始之後才設置，
+ * 所以路由數據源外面包一層 LazyConnectionDataSourceProxy，把真正取連接推遲到第一條 SQL 執行時。
+ * <p>
+ * 從庫可能有複製延遲，剛提交的寫入不一定能在緊接着的只讀事務中讀到；
+ * 需要讀到自己寫入結果的流程應該在同一個讀寫事務裡完成。
+ * <p>
+ * 本地開發時從庫是另一個 H2 內存庫 (eclassdb_replica)：eclass.replica.link-primary-tables=true 時，
+ * 主庫的 Flyway 遷移完成後在從庫中為每張表創建指向主庫的只讀鏈接表 (CREATE LINKED TABLE)，
+ * 數據與主庫一致，但查詢落在不同的數據庫實例上，路由錯誤可以通過 DATABASE() 檢查出來。
+ * prod profile 下從庫不能是內存庫，否則所有只讀查詢都會落到一個沒有表結構的空庫上。
+ */
+@Configuration
+@Profile("replica")
+public class ReplicaDataSourceConfig {
+    
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+    private static final String IN_MEMORY_URL_PREFIX = "jdbc:h2:mem:";
+    
+    private static final Logger log = LoggerFactory.getLogger(ReplicaDataSourceConfig.class);
+    
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(PRIMARY);
+        return dataSource;
+    }
+    
+    @Bean
+    @ConfigurationProperties("eclass.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(REPLICA);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                 Environment environment) {
+        if (environment.acceptsProfiles(Profiles.of("prod"))
+                && replicaDataSource.getJdbcUrl() != null
+                && replicaDataSource.getJdbcUrl().startsWith(IN_MEMORY_URL_PREFIX)) {
+            throw new IllegalStateException("prod profile 下從庫不能使用內存數據庫: " + replicaDataSource.getJdbcUrl()
+                + "，請設置 eclass.datasource.replica.jdbc-url");
+        }
+        AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+            }
+        };
+        routing.setTargetDataSources(Map.of(PRIMARY, primaryDataSource, REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+    
+    /**
+     * 先遷移主庫，再按需在從庫中創建指向主庫的鏈接表。
+     */
+    @Bean
+    public FlywayMigrationStrategy replicaLinkingMigrationStrategy(
+            HikariDataSource primaryDataSource, HikariDataSource replicaDataSource, DataSourceProperties properties,
+            @Value("${eclass.replica.link-primary-tables:false}") boolean linkPrimaryTables) {
+        return flyway -> {
+            flyway.migrate();
+            if (linkPrimaryTables) {
+                linkPrimaryTables(primaryDataSource, replicaDataSource, properties);
+            }
+        };
+    }
+    
+    private static void linkPrimaryTables(DataSource primary, DataSource replica, DataSourceProperties properties) {
+        List<String> tables = new ArrayList<>();
+        try (Connection connection = primary.getConnection();
+             ResultSet rs = connection.getMetaData().getTables(null, "PUBLIC", "%", new String[] {"TABLE"})) {
+            while (rs.next()) {
+                tables.add(rs.getString("TABLE_NAME"));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("讀取主庫表結構失敗", e);
+        }
+        
+        try (Connection connection = replica.getConnection()) {
+            for (String table : tables) {
+                try (Statement link = connection.createStatement()) {
+                    link.execute("CREATE LINKED TABLE IF NOT EXISTS " + quote(table) + "('org.h2.Driver', "
+                        + literal(properties.determineUrl()) + ", " + literal(properties.determineUsername()) + ", "
+                        + literal(properties.determinePassword()) + ", 'PUBLIC', " + literal(quote(table)) + ") READONLY");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("在從庫中創建鏈接表失敗", e);
+        }
+        log.info("從庫已鏈接主庫的 {} 張表", tables.size());
+    }
+    
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+    
+    private static String literal(String value) {
+        return value == null ? "''" : "'" + value.replace("'", "''") + "'";
+    }
+}
@@ -1,16 +1,24 @@
 package com.example.eclass.config;
 
+import com.example.eclass.security.BoundedPasswordEncoder;
 import com.example.eclass.security.CustomUserDetailsService;
 import com.vaadin.flow.spring.security.VaadinWebSecurity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
+import java.util.Map;
+
 @EnableWebSecurity
 @Configuration
 public class SecurityConfig extends VaadinWebSecurity {
@@ -18,19 +26,46 @@ public class SecurityConfig extends VaadinWebSecurity {
     @Autowired
     private CustomUserDetailsService userDetailsService;
     
+    @Value("${eclass.security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
+    @Value("${eclass.security.password.hash-threads:0}")
+    private int hashThreads;
+    
+    @Value("${eclass.security.password.hash-queue-capacity:200}")
+    private int hashQueueCapacity;
+    
+    @Value("${eclass.security.password.hash-timeout-ms:10000}")
+    private long hashTimeoutMillis;
+    
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(ObjectProvider<MeterRegistry> meterRegistry) {
+        // 新哈希帶 {bcrypt} 前綴並使用配置的強度；沒有前綴的舊哈希仍按 BCrypt 校驗，登錄成功後自動升級
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(
+            "bcrypt", Map.of("bcrypt", new BCryptPasswordEncoder(bcryptStrength))
+        );
+        delegating.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(
+            delegating,
+            threads,
+            hashQueueCapacity,
+            hashTimeoutMillis,
+            meterRegistry.getIfAvailable(() -> Metrics.globalRegistry)
+        );
     }
     
     @Override
     protected void configure(HttpSecurity http) throws Exception {
-        // 允許訪問H2控制台
+        // 允許訪問H2控制台；健康檢查和 Prometheus 抓取不需要登錄 (管理端口只綁定本機地址)
         http.authorizeHttpRequests(auth -> 
             auth.requestMatchers(
                 AntPathRequestMatcher.antMatcher("/h2-console/**"),
                 AntPathRequestMatcher.antMatcher("/VAADIN/**"),
-                AntPathRequestMatcher.antMatcher("/vaadinServlet/**")
+                AntPathRequestMatcher.antMatcher("/vaadinServlet/**"),
+                AntPathRequestMatcher.antMatcher("/actuator/health"),
+                AntPathRequestMatcher.antMatcher("/actuator/prometheus")
             ).permitAll()
         );
         
@@ -0,0 +1,355 @@
+package com.example.eclass.config;
+
+import com.example.eclass.entity.Role;
+import com.example.eclass.entity.User;
+import com.example.eclass.search.AssignmentSearchIndex;
+import com.example.eclass.service.DashboardStatsService;
+import com.example.eclass.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 大規模測試數據生成器，以 synthetic-data profile 啟動時在 DataInitializer 之後運行：
+ * <pre>mvn spring-boot:run -Dspring-boot.run.profiles=synthetic-data</pre>
+ * 規模和分佈由 application-synthetic-data.properties 中的 eclass.synthetic.* 配置。
+ * <p>
+ * 學生按編號平均分到各個老師的班級，每個作業只由本班學生提交：
+ * <ul>
+ *   <li>作業發布時間在過去 history-days 天內均勻分佈，截止時間在發布後 3 到 21 天；</li>
+ *   <li>提交時間集中在截止前 (指數分佈，平均提前 2 天)，late-rate 比例的提交在截止後，平均遲交 12 小時；</li>
+ *   <li>已截止作業的提交中 graded-rate 比例已評分，分數服從均值 75、標準差 12 的正態分佈，部分附有評語；</li>
+ *   <li>提交內容長度服從對數正態分佈，中位數為 content-median-chars，最長 20000 字符。</li>
+ * </ul>
+ * 所有用戶共用同一個預先計算的密碼哈希；數據通過 JdbcTemplate 批量插入，作業的提交記錄由多個線程並行生成。
+ * 同一個 seed 生成的數據相同；已生成過 (第一個老師賬戶已存在) 時直接跳過。
+ */
+@Component
+@Profile("synthetic-data")
+public class SyntheticDataGenerator implements CommandLineRunner {
+    
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+    
+    private static final String USER_SQL =
+        "INSERT INTO users (id, username, password, full_name, email, role, enabled) VALUES (?, ?, ?, ?, ?, ?, TRUE)";
+    private static final String ASSIGNMENT_SQL =
+        "INSERT INTO assignments (id, title, description, due_date, created_date, updated_date, teacher_id) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SUBMISSION_SQL =
+        "INSERT INTO submissions (id, content, submitted_date, assignment_id, student_id, grade, feedback) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String COMPLETED_SQL =
+        "INSERT INTO synthetic_data_runs (username_prefix, completed_date) VALUES (?, ?)";
+    
+    /** 與實體上的 @SequenceGenerator 一致，每個序列值對應一段 50 個 ID */
+    private static final int ID_ALLOCATION_SIZE = User.ID_ALLOCATION_SIZE;
+    
+    private static final int MAX_CONTENT_LENGTH = 20000;
+    
+    private static final String[] SUBJECTS = {"數學", "英語", "物理", "化學", "生物", "歷史", "地理", "語文", "計算機", "音樂"};
+    
+    private static final String[] FEEDBACK = {
+        "做得很好，繼續保持。", "思路清晰，但部分步驟缺少說明。", "請注意格式要求。",
+        "計算有誤，請參考課堂筆記。", "內容充實，論證有力。", "需要更多例子支持你的觀點。"
+    };
+    
+    private static final String FILLER = buildFiller();
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private AssignmentSearchIndex assignmentSearchIndex;
+    
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+    
+    @Value("${eclass.synthetic.teachers:100}")
+    private int teachers;
+    
+    @Value("${eclass.synthetic.students:50000}")
+    private int students;
+    
+    @Value("${eclass.synthetic.assignments-per-teacher:40}")
+    private int assignmentsPerTeacher;
+    
+    @Value("${eclass.synthetic.submission-rate:0.85}")
+    private double submissionRate;
+    
+    @Value("${eclass.synthetic.late-rate:0.12}")
+    private double lateRate;
+    
+    @Value("${eclass.synthetic.graded-rate:0.9}")
+    private double gradedRate;
+    
+    @Value("${eclass.synthetic.history-days:365}")
+    private int historyDays;
+    
+    @Value("${eclass.synthetic.content-median-chars:300}")
+    private int contentMedianChars;
+    
+    @Value("${eclass.synthetic.username-prefix:syn_}")
+    private String prefix;
+    
+    @Value("${eclass.synthetic.password:synthetic123}")
+    private String password;
+    
+    @Value("${eclass.synthetic.seed:42}")
+    private long seed;
+    
+    @Value("${eclass.synthetic.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${eclass.synthetic.parallelism:0}")
+    private int parallelism;
+    
+    @Override
+    public void run(String... args) throws Exception {
+        if (isCompleted()) {
+            log.info("測試數據已存在 (前綴 {} 已生成完成)，跳過生成", prefix);
+            return;
+        }
+        if (userService.existsByUsername(teacherUsername(0))) {
+            throw new IllegalStateException("前綴 " + prefix + " 的測試數據不完整 (上次生成中途中斷)，"
+                + "請刪除數據庫後重新生成，或設置其他 eclass.synthetic.username-prefix");
+        }
+        
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        // 所有生成的用戶共用同一個哈希，只做一次 BCrypt
+        String passwordHash = passwordEncoder.encode(password);
+        
+        long[] teacherIds = insertUsers(teachers, Role.TEACHER, passwordHash);
+        long[] studentIds = insertUsers(students, Role.STUDENT, passwordHash);
+        log.info("測試用戶已生成: {} 個老師, {} 個學生", teachers, students);
+        
+        List<GeneratedAssignment> assignments = insertAssignments(teacherIds, now);
+        log.info("測試作業已生成: {} 個", assignments.size());
+        
+        long submissions = insertSubmissions(assignments, studentIds, now);
+        
+        assignmentSearchIndex.rebuild();
+        dashboardStatsService.evictAll();
+        // 最後寫入完成標記，之前任何一步中斷都不會留下標記
+        jdbcTemplate.update(COMPLETED_SQL, prefix, Timestamp.valueOf(LocalDateTime.now()));
+        
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long rows = teachers + students + assignments.size() + submissions;
+        log.info("測試數據生成完成: {} 條提交記錄, 共 {} 行, {} 秒, {} 行/秒",
+            submissions, rows, String.format("%.1f", seconds), String.format("%.0f", rows / seconds));
+    }
+    
+    private boolean isCompleted() {
+        Long count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM synthetic_data_runs WHERE username_prefix = ?", Long.class, prefix);
+        return count != null && count > 0;
+    }
+    
+    private long[] insertUsers(int count, Role role, String passwordHash) {
+        long[] ids = new long[count];
+        for (int from = 0; from < count; from += batchSize) {
+            int to = Math.min(count, from + batchSize);
+            List<Object[]> batch = new ArrayList<>(to - from);
+            long[] chunkIds = allocateIds(User.ID_SEQUENCE, to - from);
+            for (int i = from; i < to; i++) {
+                ids[i] = chunkIds[i - from];
+                String username = role == Role.TEACHER ? teacherUsername(i) : studentUsername(i);
+                String fullName = (role == Role.TEACHER ? "測試老師 " : "測試學生 ") + (i + 1);
+                batch.add(new Object[]{ids[i], username, passwordHash, fullName, username + "@synthetic.eclass", role.name()});
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(USER_SQL, batch));
+        }
+        return ids;
+    }
+    
+    private List<GeneratedAssignment> insertAssignments(long[] teacherIds, LocalDateTime now) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int count = teacherIds.length * assignmentsPerTeacher;
+        long[] ids = allocateIds("assignments_seq", count);
+        List<GeneratedAssignment> assignments = new ArrayList<>(count);
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        
+        for (int i = 0; i < count; i++) {
+            int teacherIndex = i % teacherIds.length;
+            LocalDateTime created = now.minusMinutes(random.nextLong((long) historyDays * 24 * 60 + 1));
+            LocalDateTime due = created.plusHours(random.nextInt(3 * 24, 21 * 24 + 1));
+            String subject = SUBJECTS[random.nextInt(SUBJECTS.length)];
+            String title = subject + "作業 " + (i / teacherIds.length + 1);
+            String description = FILLER.substring(0, random.nextInt(50, 500));
+            
+            assignments.add(new GeneratedAssignment(ids[i], teacherIndex, created, due));
+            batch.add(new Object[]{ids[i], title, description, Timestamp.valueOf(due), Timestamp.valueOf(created),
+                Timestamp.valueOf(created), teacherIds[teacherIndex]});
+            if (batch.size() == batchSize || i == count - 1) {
+                List<Object[]> chunk = batch;
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(ASSIGNMENT_SQL, chunk));
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        return assignments;
+    }
+    
+    /**
+     * 每個作業一個任務並行生成，隨機數以 seed 和作業序號派生，結果與線程調度無關。
+     */
+    private long insertSubmissions(List<GeneratedAssignment> assignments, long[] studentIds, LocalDateTime now)
+            throws Exception {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicLong inserted = new AtomicLong();
+        try {
+            List<Future<?>> futures = new ArrayList<>(assignments.size());
+            for (int i = 0; i < assignments.size(); i++) {
+                GeneratedAssignment assignment = assignments.get(i);
+                SplittableRandom random = new SplittableRandom(seed * 31 + i);
+                futures.add(pool.submit(() -> {
+                    long count = insertSubmissions(assignment, studentIds, now, random);
+                    long total = inserted.addAndGet(count);
+                    if (total / 100_000 != (total - count) / 100_000) {
+                        log.info("已生成 {} 條提交記錄", total);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return inserted.get();
+    }
+    
+    private long insertSubmissions(GeneratedAssignment assignment, long[] studentIds, LocalDateTime now,
+                                   SplittableRandom random) {
+        List<Object[]> rows = new ArrayList<>();
+        // 班級成員：編號對老師人數取模等於老師序號的學生
+        for (int s = assignment.teacherIndex; s < studentIds.length; s += teachers) {
+            if (random.nextDouble() >= submissionRate) {
+                continue;
+            }
+            LocalDateTime submitted = random.nextDouble() < lateRate
+                ? assignment.dueDate.plusMinutes(exponentialMinutes(random, 12 * 60))
+                : assignment.dueDate.minusMinutes(exponentialMinutes(random, 2 * 24 * 60));
+            if (submitted.isBefore(assignment.createdDate)) {
+                // 提前量超過了作業發布到截止的時長，不能早於發布時間
+                submitted = assignment.createdDate;
+            }
+            if (submitted.isAfter(now)) {
+                // 作業還在進行中，這個學生還沒有提交
+                continue;
+            }
+            
+            Integer grade = null;
+            String feedback = null;
+            if (assignment.dueDate.isBefore(now) && random.nextDouble() < gradedRate) {
+                grade = (int) Math.round(Math.max(0, Math.min(100, 75 + 12 * gaussian(random))));
+                if (random.nextDouble() < 0.4) {
+                    feedback = FEEDBACK[random.nextInt(FEEDBACK.length)];
+                }
+            }
+            // 第一列 ID 在分批插入時分配
+            rows.add(new Object[]{null, FILLER.substring(0, contentLength(random)), Timestamp.valueOf(submitted),
+                assignment.id, studentIds[s], grade, feedback});
+        }
+        
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Object[]> chunk = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            long[] ids = allocateIds("submissions_seq", chunk.size());
+            for (int i = 0; i < ids.length; i++) {
+                chunk.get(i)[0] = ids[i];
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(SUBMISSION_SQL, chunk));
+        }
+        return rows.size();
+    }
+    
+    /**
+     * 按 Hibernate pooled 優化器的規則一次分配 count 個 ID：每個序列值 N 對應 [N - 49, N] 一段，
+     * 與 JPA 保存的實體共用序列而不會衝突。一條查詢取出所需的全部序列值。
+     */
+    private long[] allocateIds(String sequence, int count) {
+        int blocks = (count + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+        List<Long> his = jdbcTemplate.queryForList(
+            "SELECT NEXT VALUE FOR " + sequence + " FROM SYSTEM_RANGE(1, ?)", Long.class, blocks);
+        long[] ids = new long[count];
+        int index = 0;
+        for (long hi : his) {
+            for (long id = Math.max(1, hi - ID_ALLOCATION_SIZE + 1); id <= hi && index < count; id++) {
+                ids[index++] = id;
+            }
+        }
+        return ids;
+    }
+    
+    private static long exponentialMinutes(SplittableRandom random, double meanMinutes) {
+        return (long) (-meanMinutes * Math.log(1 - random.nextDouble()));
+    }
+    
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller，SplittableRandom 沒有 nextGaussian
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+    
+    private int contentLength(SplittableRandom random) {
+        double length = Math.exp(Math.log(contentMedianChars) + gaussian(random));
+        return (int) Math.max(20, Math.min(MAX_CONTENT_LENGTH, length));
+    }
+    
+    private String teacherUsername(int index) {
+        return String.format("%steacher%04d", prefix, index + 1);
+    }
+    
+    private String studentUsername(int index) {
+        return String.format("%sstudent%06d", prefix, index + 1);
+    }
+    
+    private static String buildFiller() {
+        String sentence = "這是自動生成的測試內容，用於驗證大數據量下的查詢和頁面性能。";
+        StringBuilder builder = new StringBuilder(MAX_CONTENT_LENGTH + sentence.length());
+        while (builder.length() < MAX_CONTENT_LENGTH) {
+            builder.append(sentence);
+        }
+        return builder.toString();
+    }
+    
+    private static final class GeneratedAssignment {
+        private final long id;
+        private final int teacherIndex;
+        private final LocalDateTime createdDate;
+        private final LocalDateTime dueDate;
+        
+        private GeneratedAssignment(long id, int teacherIndex, LocalDateTime createdDate, LocalDateTime dueDate) {
+            this.id = id;
+            this.teacherIndex = teacherIndex;
+            this.createdDate = createdDate;
+            this.dueDate = dueDate;
+        }
+    }
+}
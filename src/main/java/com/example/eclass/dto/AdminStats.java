@@ -0,0 +1,38 @@
+package com.example.eclass.dto;
+
+/**
+ * 管理員儀表板的統計卡片數據。
+ */
+public class AdminStats {
+    
+    private final long totalUsers;
+    private final long teachers;
+    private final long students;
+    
+    public AdminStats(Long totalUsers, Long teachers, Long students) {
+        this.totalUsers = totalUsers != null ? totalUsers : 0;
+        this.teachers = teachers != null ? teachers : 0;
+        this.students = students != null ? students : 0;
+    }
+    
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+    
+    public long getTeachers() {
+        return teachers;
+    }
+    
+    public long getStudents() {
+        return students;
+    }
+    
+    @Override
+    public String toString() {
+        return "AdminStats{" +
+                "totalUsers=" + totalUsers +
+                ", teachers=" + teachers +
+                ", students=" + students +
+                '}';
+    }
+}
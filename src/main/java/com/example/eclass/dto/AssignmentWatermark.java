@@ -0,0 +1,59 @@
+package com.example.eclass.dto;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 作業表的高水位：行數、最大 ID 和最大修改時間。
+ * 全文索引提交時記錄自己已寫入的高水位，啟動時與數據庫比較，任何一項不一致就重建。
+ */
+public class AssignmentWatermark {
+    
+    private final long count;
+    private final Long maxId;
+    private final LocalDateTime maxUpdatedDate;
+    
+    public AssignmentWatermark(Long count, Long maxId, LocalDateTime maxUpdatedDate) {
+        this.count = count != null ? count : 0;
+        this.maxId = maxId;
+        this.maxUpdatedDate = maxUpdatedDate;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public Long getMaxId() {
+        return maxId;
+    }
+    
+    public LocalDateTime getMaxUpdatedDate() {
+        return maxUpdatedDate;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AssignmentWatermark other)) {
+            return false;
+        }
+        return count == other.count && Objects.equals(maxId, other.maxId)
+            && Objects.equals(maxUpdatedDate, other.maxUpdatedDate);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, maxId, maxUpdatedDate);
+    }
+    
+    @Override
+    public String toString() {
+        return "AssignmentWatermark{" +
+                "count=" + count +
+                ", maxId=" + maxId +
+                ", maxUpdatedDate=" + maxUpdatedDate +
+                '}';
+    }
+}
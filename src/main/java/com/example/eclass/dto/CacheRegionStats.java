@@ -0,0 +1,50 @@
+package com.example.eclass.dto;
+
+/**
+ * 單個二級緩存區域的命中統計。
+ */
+public class CacheRegionStats {
+    
+    private final String region;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    
+    public CacheRegionStats(String region, long hits, long misses, long puts) {
+        this.region = region;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+    }
+    
+    public String getRegion() {
+        return region;
+    }
+    
+    public long getHits() {
+        return hits;
+    }
+    
+    public long getMisses() {
+        return misses;
+    }
+    
+    public long getPuts() {
+        return puts;
+    }
+    
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+    
+    @Override
+    public String toString() {
+        return "CacheRegionStats{" +
+                "region='" + region + '\'' +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", puts=" + puts +
+                '}';
+    }
+}
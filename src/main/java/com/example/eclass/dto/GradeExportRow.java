@@ -0,0 +1,73 @@
+package com.example.eclass.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 成績導出的一行。由 JPQL 構造表達式逐行生成，導出過程中不載入任何實體。
+ */
+public class GradeExportRow {
+    
+    private final Long submissionId;
+    private final Long assignmentId;
+    private final String assignmentTitle;
+    private final String username;
+    private final String studentName;
+    private final LocalDateTime submittedDate;
+    private final LocalDateTime dueDate;
+    private final Integer grade;
+    private final String feedback;
+    
+    public GradeExportRow(Long submissionId, Long assignmentId, String assignmentTitle, String username,
+                          String studentName, LocalDateTime submittedDate, LocalDateTime dueDate,
+                          Integer grade, String feedback) {
+        this.submissionId = submissionId;
+        this.assignmentId = assignmentId;
+        this.assignmentTitle = assignmentTitle;
+        this.username = username;
+        this.studentName = studentName;
+        this.submittedDate = submittedDate;
+        this.dueDate = dueDate;
+        this.grade = grade;
+        this.feedback = feedback;
+    }
+    
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+    
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+    
+    public String getAssignmentTitle() {
+        return assignmentTitle;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public String getStudentName() {
+        return studentName;
+    }
+    
+    public LocalDateTime getSubmittedDate() {
+        return submittedDate;
+    }
+    
+    public LocalDateTime getDueDate() {
+        return dueDate;
+    }
+    
+    public Integer getGrade() {
+        return grade;
+    }
+    
+    public String getFeedback() {
+        return feedback;
+    }
+    
+    public boolean isLate() {
+        return submittedDate.isAfter(dueDate);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.eclass.dto;
+
+/**
+ * 批量評分中的一條記錄。feedback 為 null 或空白時保留原有評語 (導入文件中的空單元格不會清空評語)。
+ */
+public class GradeUpdate {
+    
+    private final Long submissionId;
+    private final Integer grade;
+    private final String feedback;
+    
+    public GradeUpdate(Long submissionId, Integer grade, String feedback) {
+        this.submissionId = submissionId;
+        this.grade = grade;
+        this.feedback = feedback == null || feedback.isBlank() ? null : feedback;
+    }
+    
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+    
+    public Integer getGrade() {
+        return grade;
+    }
+    
+    public String getFeedback() {
+        return feedback;
+    }
+    
+    @Override
+    public String toString() {
+        return "GradeUpdate{" +
+                "submissionId=" + submissionId +
+                ", grade=" + grade +
+                '}';
+    }
+}
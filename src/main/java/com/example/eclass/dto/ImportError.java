@@ -0,0 +1,38 @@
+package com.example.eclass.dto;
+
+/**
+ * 批量導入中單行的錯誤信息。
+ */
+public class ImportError {
+    
+    private final long lineNumber;
+    private final String key;
+    private final String message;
+    
+    public ImportError(long lineNumber, String key, String message) {
+        this.lineNumber = lineNumber;
+        this.key = key;
+        this.message = message;
+    }
+    
+    public long getLineNumber() {
+        return lineNumber;
+    }
+    
+    public String getKey() {
+        return key;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    @Override
+    public String toString() {
+        return "ImportError{" +
+                "lineNumber=" + lineNumber +
+                ", key='" + key + '\'' +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
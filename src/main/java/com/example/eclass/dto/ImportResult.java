@@ -0,0 +1,53 @@
+package com.example.eclass.dto;
+
+import java.util.List;
+
+/**
+ * 批量導入的結果匯總。errors 只保留前若干條，failed 是完整的失敗行數。
+ */
+public class ImportResult {
+    
+    private final long processed;
+    private final long imported;
+    private final long failed;
+    private final List<ImportError> errors;
+    private final long durationMillis;
+    
+    public ImportResult(long processed, long imported, long failed, List<ImportError> errors, long durationMillis) {
+        this.processed = processed;
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = List.copyOf(errors);
+        this.durationMillis = durationMillis;
+    }
+    
+    public long getProcessed() {
+        return processed;
+    }
+    
+    public long getImported() {
+        return imported;
+    }
+    
+    public long getFailed() {
+        return failed;
+    }
+    
+    public List<ImportError> getErrors() {
+        return errors;
+    }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "processed=" + processed +
+                ", imported=" + imported +
+                ", failed=" + failed +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.eclass.dto;
+
+/**
+ * 一條慢查詢語句的彙總：次數、耗時，以及最近一次的參數類型和調用方。
+ */
+public class SlowQueryStats {
+    
+    private final String sql;
+    private final long count;
+    private final double totalMillis;
+    private final double maxMillis;
+    private final long maxRows;
+    private final String lastParameters;
+    private final String lastCaller;
+    
+    public SlowQueryStats(String sql, long count, double totalMillis, double maxMillis, long maxRows,
+                          String lastParameters, String lastCaller) {
+        this.sql = sql;
+        this.count = count;
+        this.totalMillis = totalMillis;
+        this.maxMillis = maxMillis;
+        this.maxRows = maxRows;
+        this.lastParameters = lastParameters;
+        this.lastCaller = lastCaller;
+    }
+    
+    public String getSql() {
+        return sql;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+    
+    public double getAverageMillis() {
+        return count == 0 ? 0 : totalMillis / count;
+    }
+    
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+    
+    /** 讀取或影響的最多行數，未知時為 -1 */
+    public long getMaxRows() {
+        return maxRows;
+    }
+    
+    public String getLastParameters() {
+        return lastParameters;
+    }
+    
+    public String getLastCaller() {
+        return lastCaller;
+    }
+    
+    @Override
+    public String toString() {
+        return "SlowQueryStats{" +
+                "sql='" + sql + '\'' +
+                ", count=" + count +
+                ", totalMillis=" + totalMillis +
+                ", maxMillis=" + maxMillis +
+                '}';
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.eclass.dto;
+
+/**
+ * 學生儀表板的統計卡片數據。
+ */
+public class StudentStats {
+    
+    private final long totalAssignments;
+    private final long submitted;
+    
+    public StudentStats(Long totalAssignments, Long submitted) {
+        this.totalAssignments = totalAssignments != null ? totalAssignments : 0;
+        this.submitted = submitted != null ? submitted : 0;
+    }
+    
+    public long getTotalAssignments() {
+        return totalAssignments;
+    }
+    
+    public long getSubmitted() {
+        return submitted;
+    }
+    
+    public long getPending() {
+        return Math.max(0, totalAssignments - submitted);
+    }
+    
+    @Override
+    public String toString() {
+        return "StudentStats{" +
+                "totalAssignments=" + totalAssignments +
+                ", submitted=" + submitted +
+                '}';
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.eclass.dto;
+
+/**
+ * 提交內容和老師評語的正文。
+ * 這兩列可能很大，列表查詢不讀取，只在詳情或評分對話框中按 ID 單獨查詢。
+ */
+public class SubmissionBody {
+    
+    private final Long submissionId;
+    private final String content;
+    private final String feedback;
+    
+    public SubmissionBody(Long submissionId, String content, String feedback) {
+        this.submissionId = submissionId;
+        this.content = content;
+        this.feedback = feedback;
+    }
+    
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+    
+    public String getContent() {
+        return content;
+    }
+    
+    public String getFeedback() {
+        return feedback;
+    }
+}
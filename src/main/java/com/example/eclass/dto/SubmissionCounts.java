@@ -0,0 +1,54 @@
+package com.example.eclass.dto;
+
+/**
+ * 單個作業的提交統計：已提交、已評分和遲交數量。
+ * 由按 assignment_id 分組的聚合查詢一次為多個作業生成。
+ */
+public class SubmissionCounts {
+    
+    private final Long assignmentId;
+    private final long submitted;
+    private final long graded;
+    private final long late;
+    
+    public SubmissionCounts(Long assignmentId, Long submitted, Long graded, Long late) {
+        this.assignmentId = assignmentId;
+        this.submitted = submitted != null ? submitted : 0;
+        this.graded = graded != null ? graded : 0;
+        this.late = late != null ? late : 0;
+    }
+    
+    public static SubmissionCounts empty(Long assignmentId) {
+        return new SubmissionCounts(assignmentId, 0L, 0L, 0L);
+    }
+    
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+    
+    public long getSubmitted() {
+        return submitted;
+    }
+    
+    public long getGraded() {
+        return graded;
+    }
+    
+    public long getLate() {
+        return late;
+    }
+    
+    public long getUngraded() {
+        return submitted - graded;
+    }
+    
+    @Override
+    public String toString() {
+        return "SubmissionCounts{" +
+                "assignmentId=" + assignmentId +
+                ", submitted=" + submitted +
+                ", graded=" + graded +
+                ", late=" + late +
+                '}';
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.eclass.dto;
+
+/**
+ * 提交記錄 ID 與提交學生用戶名的對應，用於按用戶名導入成績。
+ */
+public class SubmissionStudentRef {
+    
+    private final Long submissionId;
+    private final String username;
+    
+    public SubmissionStudentRef(Long submissionId, String username) {
+        this.submissionId = submissionId;
+        this.username = username;
+    }
+    
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.eclass.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 提交記錄的列表行，只包含 Grid 需要顯示的字段。
+ * 由 JPQL 構造表達式一次查詢生成，不會觸發 assignment/student 的延遲加載，
+ * 也不包含提交內容和評語正文，正文在打開詳情時通過 {@link SubmissionBody} 單獨讀取。
+ */
+public class SubmissionSummary {
+    
+    private final Long id;
+    private final Long assignmentId;
+    private final String assignmentTitle;
+    private final String studentName;
+    private final LocalDateTime submittedDate;
+    private final LocalDateTime dueDate;
+    private final Integer grade;
+    private final boolean feedbackGiven;
+    
+    public SubmissionSummary(Long id, Long assignmentId, String assignmentTitle, String studentName,
+                             LocalDateTime submittedDate, LocalDateTime dueDate, Integer grade) {
+        this(id, assignmentId, assignmentTitle, studentName, submittedDate, dueDate, grade, false);
+    }
+    
+    public SubmissionSummary(Long id, Long assignmentId, String assignmentTitle, String studentName,
+                             LocalDateTime submittedDate, LocalDateTime dueDate, Integer grade,
+                             Boolean feedbackGiven) {
+        this.id = id;
+        this.assignmentId = assignmentId;
+        this.assignmentTitle = assignmentTitle;
+        this.studentName = studentName;
+        this.submittedDate = submittedDate;
+        this.dueDate = dueDate;
+        this.grade = grade;
+        this.feedbackGiven = feedbackGiven != null && feedbackGiven;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+    
+    public String getAssignmentTitle() {
+        return assignmentTitle;
+    }
+    
+    public String getStudentName() {
+        return studentName;
+    }
+    
+    public LocalDateTime getSubmittedDate() {
+        return submittedDate;
+    }
+    
+    public LocalDateTime getDueDate() {
+        return dueDate;
+    }
+    
+    public Integer getGrade() {
+        return grade;
+    }
+    
+    public boolean isFeedbackGiven() {
+        return feedbackGiven;
+    }
+    
+    public boolean isLate() {
+        return submittedDate.isAfter(dueDate);
+    }
+    
+    @Override
+    public String toString() {
+        return "SubmissionSummary{" +
+                "id=" + id +
+                ", assignmentTitle='" + assignmentTitle + '\'' +
+                ", studentName='" + studentName + '\'' +
+                ", submittedDate=" + submittedDate +
+                ", grade=" + grade +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.eclass.dto;
+
+/**
+ * 老師儀表板的統計卡片數據。
+ */
+public class TeacherStats {
+    
+    private final long assignments;
+    private final long submissions;
+    private final long ungraded;
+    
+    public TeacherStats(Long assignments, Long submissions, Long ungraded) {
+        this.assignments = assignments != null ? assignments : 0;
+        this.submissions = submissions != null ? submissions : 0;
+        this.ungraded = ungraded != null ? ungraded : 0;
+    }
+    
+    public long getAssignments() {
+        return assignments;
+    }
+    
+    public long getSubmissions() {
+        return submissions;
+    }
+    
+    public long getUngraded() {
+        return ungraded;
+    }
+    
+    @Override
+    public String toString() {
+        return "TeacherStats{" +
+                "assignments=" + assignments +
+                ", submissions=" + submissions +
+                ", ungraded=" + ungraded +
+                '}';
+    }
+}
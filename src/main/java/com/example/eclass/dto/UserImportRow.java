@@ -0,0 +1,64 @@
+package com.example.eclass.dto;
+
+/**
+ * 批量導入文件中的一行用戶數據 (CSV 列或 JSON 對象字段)。
+ * role 可以是枚舉名 (ADMIN/TEACHER/STUDENT) 或中文名稱。
+ */
+public class UserImportRow {
+    
+    private String username;
+    private String password;
+    private String fullName;
+    private String email;
+    private String role;
+    
+    public UserImportRow() {}
+    
+    public UserImportRow(String username, String password, String fullName, String email, String role) {
+        this.username = username;
+        this.password = password;
+        this.fullName = fullName;
+        this.email = email;
+        this.role = role;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public void setUsername(String username) {
+        this.username = username;
+    }
+    
+    public String getPassword() {
+        return password;
+    }
+    
+    public void setPassword(String password) {
+        this.password = password;
+    }
+    
+    public String getFullName() {
+        return fullName;
+    }
+    
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public void setEmail(String email) {
+        this.email = email;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+    
+    public void setRole(String role) {
+        this.role = role;
+    }
+}
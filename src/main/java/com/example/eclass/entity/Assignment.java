@@ -1,18 +1,30 @@
 package com.example.eclass.entity;
 
+import com.example.eclass.config.CacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "assignments")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.ASSIGNMENTS_REGION)
+@Table(name = "assignments",
+       indexes = {
+           @Index(name = "idx_assignments_teacher_created", columnList = "teacher_id, created_date DESC"),
+           @Index(name = "idx_assignments_created", columnList = "created_date DESC"),
+           @Index(name = "idx_assignments_due_date", columnList = "due_date")
+       })
 public class Assignment {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "assignments_seq")
+    @SequenceGenerator(name = "assignments_seq", sequenceName = "assignments_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "作業標題不能為空")
@@ -29,10 +41,18 @@ public class Assignment {
     @Column(nullable = false)
     private LocalDateTime createdDate;
     
+    /** 最後修改時間，保存時自動更新；截斷到微秒，與 TIMESTAMP(6) 列的精度一致 */
+    @Column(nullable = false)
+    private LocalDateTime updatedDate;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id", nullable = false)
     private User teacher;
     
+    /** 每位學生附件總大小上限 (字節)，null 表示使用系統默認值 */
+    @Column(name = "attachment_quota_bytes")
+    private Long attachmentQuotaBytes;
+    
     @OneToMany(mappedBy = "assignment", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Submission> submissions = new ArrayList<>();
     
@@ -90,6 +110,16 @@ public class Assignment {
         this.createdDate = createdDate;
     }
     
+    public LocalDateTime getUpdatedDate() {
+        return updatedDate;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    void touchUpdatedDate() {
+        this.updatedDate = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+    
     public User getTeacher() {
         return teacher;
     }
@@ -98,6 +128,14 @@ public class Assignment {
         this.teacher = teacher;
     }
     
+    public Long getAttachmentQuotaBytes() {
+        return attachmentQuotaBytes;
+    }
+    
+    public void setAttachmentQuotaBytes(Long attachmentQuotaBytes) {
+        this.attachmentQuotaBytes = attachmentQuotaBytes;
+    }
+    
     public List<Submission> getSubmissions() {
         return submissions;
     }
@@ -0,0 +1,123 @@
+package com.example.eclass.entity;
+
+import com.example.eclass.storage.AttachmentRemovalListener;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 提交的附件。文件內容保存在 AttachmentStore 中，以 sha256 引用，相同內容的附件共用一個文件。
+ */
+@Entity
+@EntityListeners(AttachmentRemovalListener.class)
+@Table(name = "attachments",
+       indexes = {
+           @Index(name = "idx_attachments_submission", columnList = "submission_id"),
+           @Index(name = "idx_attachments_sha256", columnList = "sha256")
+       })
+public class Attachment {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attachments_seq")
+    @SequenceGenerator(name = "attachments_seq", sequenceName = "attachments_seq", allocationSize = 50)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "submission_id", nullable = false)
+    private Submission submission;
+    
+    @Column(nullable = false)
+    private String fileName;
+    
+    @Column
+    private String contentType;
+    
+    @Column(name = "size_bytes", nullable = false)
+    private long size;
+    
+    @Column(nullable = false, length = 64)
+    private String sha256;
+    
+    @Column(nullable = false)
+    private LocalDateTime uploadedDate;
+    
+    // 構造函數
+    public Attachment() {
+        this.uploadedDate = LocalDateTime.now();
+    }
+    
+    public Attachment(Submission submission, String fileName, String contentType, long size, String sha256) {
+        this();
+        this.submission = submission;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.size = size;
+        this.sha256 = sha256;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Submission getSubmission() {
+        return submission;
+    }
+    
+    public void setSubmission(Submission submission) {
+        this.submission = submission;
+    }
+    
+    public String getFileName() {
+        return fileName;
+    }
+    
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public void setSize(long size) {
+        this.size = size;
+    }
+    
+    public String getSha256() {
+        return sha256;
+    }
+    
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+    
+    public LocalDateTime getUploadedDate() {
+        return uploadedDate;
+    }
+    
+    public void setUploadedDate(LocalDateTime uploadedDate) {
+        this.uploadedDate = uploadedDate;
+    }
+    
+    @Override
+    public String toString() {
+        return "Attachment{" +
+                "id=" + id +
+                ", fileName='" + fileName + '\'' +
+                ", size=" + size +
+                ", sha256='" + sha256 + '\'' +
+                '}';
+    }
+}
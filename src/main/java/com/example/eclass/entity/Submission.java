@@ -3,13 +3,25 @@ package com.example.eclass.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "submissions")
+@Table(name = "submissions",
+       uniqueConstraints = @UniqueConstraint(name = Submission.ASSIGNMENT_STUDENT_CONSTRAINT,
+                                             columnNames = {"assignment_id", "student_id"}),
+       indexes = {
+           @Index(name = "idx_submissions_student_submitted", columnList = "student_id, submitted_date DESC, id DESC"),
+           @Index(name = "idx_submissions_assignment_submitted", columnList = "assignment_id, submitted_date DESC, id DESC")
+       })
 public class Submission {
     
+    /** 每個學生對每個作業只有一條提交記錄，插入衝突時按此名稱識別 */
+    public static final String ASSIGNMENT_STUDENT_CONSTRAINT = "uk_submissions_assignment_student";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "submissions_seq")
+    @SequenceGenerator(name = "submissions_seq", sequenceName = "submissions_seq", allocationSize = 50)
     private Long id;
     
     @Column(columnDefinition = "TEXT")
@@ -32,6 +44,9 @@ public class Submission {
     @Column(columnDefinition = "TEXT")
     private String feedback;
     
+    @OneToMany(mappedBy = "submission", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    private List<Attachment> attachments = new ArrayList<>();
+    
     // 構造函數
     public Submission() {
         this.submittedDate = LocalDateTime.now();
@@ -101,6 +116,14 @@ public class Submission {
         this.feedback = feedback;
     }
     
+    public List<Attachment> getAttachments() {
+        return attachments;
+    }
+    
+    public void setAttachments(List<Attachment> attachments) {
+        this.attachments = attachments;
+    }
+    
     public boolean isLate() {
         return submittedDate.isAfter(assignment.getDueDate());
     }
@@ -1,20 +1,35 @@
 package com.example.eclass.entity;
 
+import com.example.eclass.config.CacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
-@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.USERS_REGION)
+@NaturalIdCache(region = CacheConfig.USERS_BY_USERNAME_REGION)
+@Table(name = "users",
+       indexes = @Index(name = "idx_users_role", columnList = "role"))
 public class User {
     
+    /** 主鍵序列及其每次分配的號段大小，繞過 JPA 直接插入用戶時須使用同樣的規則 */
+    public static final String ID_SEQUENCE = "users_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     @NotBlank(message = "用戶名不能為空")
     @Size(min = 3, max = 50, message = "用戶名長度必須在3-50字符之間")
+    @NaturalId(mutable = true)
     @Column(unique = true, nullable = false)
     private String username;
     
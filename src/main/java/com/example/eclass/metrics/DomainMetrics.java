@@ -0,0 +1,57 @@
+package com.example.eclass.metrics;
+
+import com.example.eclass.util.TransactionHooks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * 業務計數器：作業提交、評分和登錄次數。
+ * 計數器只增不減，每分鐘的速率在 Prometheus 中計算，例如 rate(eclass_submissions_total[5m]) * 60。
+ * 提交和評分在事務提交後才計數，回滾的操作不計入。
+ */
+@Component
+public class DomainMetrics {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    public void submissionRecorded(boolean resubmission) {
+        Counter counter = Counter.builder("eclass.submissions")
+            .description("作業提交次數")
+            .tag("type", resubmission ? "resubmit" : "new")
+            .register(meterRegistry);
+        TransactionHooks.afterCommit(counter::increment);
+    }
+    
+    public void gradesRecorded(int count) {
+        if (count <= 0) {
+            return;
+        }
+        Counter counter = Counter.builder("eclass.grades")
+            .description("評分次數")
+            .register(meterRegistry);
+        TransactionHooks.afterCommit(() -> counter.increment(count));
+    }
+    
+    @EventListener
+    public void onLoginSuccess(AuthenticationSuccessEvent event) {
+        loginCounter("success").increment();
+    }
+    
+    @EventListener
+    public void onLoginFailure(AbstractAuthenticationFailureEvent event) {
+        loginCounter("failure").increment();
+    }
+    
+    private Counter loginCounter(String result) {
+        return Counter.builder("eclass.logins")
+            .description("登錄次數")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.eclass.metrics;
+
+import com.example.eclass.dto.SlowQueryStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢查詢日誌，語句由 {@link SqlCaptureDataSource} 上報。
+ * 超過 eclass.slow-query.threshold-ms 的語句記 WARN 並按 SQL 文本彙總，其餘按 sample-rate 抽樣記 INFO。
+ * 每條記錄包括 SQL、綁定參數的類型 (不記錄參數值)、耗時 (執行加讀取結果，其中讀取結果的部分單獨列出)、行數和調用的服務方法；
+ * 輸出經 logback-spring.xml 中的異步 appender，不阻塞執行語句的線程。
+ */
+@Component
+public class SlowQueryLog {
+    
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+    
+    /** 彙總的不同語句數上限，超出後新的語句只記日誌 */
+    private static final int MAX_STATEMENTS = 1000;
+    
+    @Value("${eclass.slow-query.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${eclass.slow-query.threshold-ms:100}")
+    private long thresholdMillis;
+    
+    @Value("${eclass.slow-query.sample-rate:0.001}")
+    private double sampleRate;
+    
+    @Value("${eclass.slow-query.top-size:20}")
+    private int topSize;
+    
+    private final Map<String, Aggregate> statements = new ConcurrentHashMap<>();
+    
+    /** 是否需要記錄這次執行；為 true 時再調用 capture，參數類型只在這時才拼接 */
+    public boolean isCaptured(long nanos) {
+        return enabled && (isSlow(nanos) || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate));
+    }
+    
+    /**
+     * @param parameters 綁定參數的類型，如 [Long, String(12), NULL]
+     * @param nanos 在驅動中花費的總時間 (執行加讀取結果)
+     * @param fetchNanos 其中讀取結果 (ResultSet.next) 的時間，非查詢語句為 0
+     * @param rows 讀取或影響的行數，未知時為 -1
+     */
+    public void capture(String sql, String parameters, long nanos, long fetchNanos, long rows) {
+        String caller = ServiceMetricsInterceptor.currentMethod();
+        if (caller == null) {
+            caller = "-";
+        }
+        String millis = String.format("%.1f", nanos / 1_000_000.0);
+        String fetchMillis = String.format("%.1f", fetchNanos / 1_000_000.0);
+        String rowCount = rows < 0 ? "?" : String.valueOf(rows);
+        if (isSlow(nanos)) {
+            log.warn("慢查詢 {} ms (讀取結果 {} ms), {} 行, 調用方 {}, 參數 {}: {}", millis, fetchMillis, rowCount, caller,
+                parameters, sql);
+            Aggregate aggregate = statements.get(sql);
+            if (aggregate == null && statements.size() < MAX_STATEMENTS) {
+                aggregate = statements.computeIfAbsent(sql, Aggregate::new);
+            }
+            if (aggregate != null) {
+                aggregate.add(nanos, rows, parameters, caller);
+            }
+        } else {
+            log.info("SQL 抽樣 {} ms (讀取結果 {} ms), {} 行, 調用方 {}, 參數 {}: {}", millis, fetchMillis, rowCount, caller,
+                parameters, sql);
+        }
+    }
+    
+    /** 總耗時最多的慢查詢語句 */
+    public List<SlowQueryStats> getTopStatements() {
+        List<SlowQueryStats> result = new ArrayList<>();
+        for (Aggregate aggregate : statements.values()) {
+            result.add(aggregate.snapshot());
+        }
+        result.sort(Comparator.comparingDouble(SlowQueryStats::getTotalMillis).reversed());
+        return result.subList(0, Math.min(topSize, result.size()));
+    }
+    
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+    
+    public void reset() {
+        statements.clear();
+    }
+    
+    private boolean isSlow(long nanos) {
+        return nanos >= TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+    
+    private static final class Aggregate {
+        
+        private final String sql;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long maxRows = -1;
+        private String lastParameters;
+        private String lastCaller;
+        
+        private Aggregate(String sql) {
+            this.sql = sql;
+        }
+        
+        synchronized void add(long nanos, long rows, String parameters, String caller) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            maxRows = Math.max(maxRows, rows);
+            lastParameters = parameters;
+            lastCaller = caller;
+        }
+        
+        synchronized SlowQueryStats snapshot() {
+            return new SlowQueryStats(sql, count, totalNanos / 1_000_000.0, maxNanos / 1_000_000.0, maxRows,
+                lastParameters, lastCaller);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.eclass.metrics;
+
+import com.vaadin.flow.component.HasElement;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinSession;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 每個 HTTP 請求的 SQL 預算。語句總數或同一條語句的次數超出預算時，記一條彙總警告，
+ * 寫明所在視圖 (Vaadin 路由類，其他請求為請求路徑) 和重複最多的語句，並計入 eclass.sql.budget.exceeded。
+ */
+@Component
+public class SqlBudgetFilter extends OncePerRequestFilter {
+    
+    private static final Logger log = LoggerFactory.getLogger(SqlBudgetFilter.class);
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${eclass.sql-budget.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${eclass.sql-budget.max-statements:50}")
+    private int maxStatements;
+    
+    @Value("${eclass.sql-budget.max-repeats:10}")
+    private int maxRepeats;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (SqlStatementCounter counter = SqlStatementCounter.start()) {
+            chain.doFilter(request, response);
+            if (counter.getTotal() > maxStatements || counter.getMaxRepeats() > maxRepeats) {
+                String view = viewName(counter.getUi());
+                log.warn("{} 的一次請求執行了 {} 條 SQL (預算 {} 條，同一語句最多 {} 次)，重複最多的語句:{}",
+                    view != null ? view : request.getMethod() + " " + request.getRequestURI(),
+                    counter.getTotal(), maxStatements, maxRepeats, counter.describeTopStatements(3));
+                Counter.builder("eclass.sql.budget.exceeded")
+                    .description("超出 SQL 預算的請求數")
+                    .tag("view", view != null ? view : "none")
+                    .register(meterRegistry)
+                    .increment();
+            }
+        }
+    }
+    
+    /** 當前路由的視圖類名；不是 UIDL 請求或會話已關閉時為 null */
+    private String viewName(UI ui) {
+        VaadinSession session = ui != null ? ui.getSession() : null;
+        if (session != null) {
+            session.lock();
+            try {
+                List<HasElement> chain = ui.getInternals().getActiveRouterTargetsChain();
+                if (!chain.isEmpty()) {
+                    return chain.get(0).getClass().getSimpleName();
+                }
+            } finally {
+                session.unlock();
+            }
+        }
+        return null;
+    }
+}
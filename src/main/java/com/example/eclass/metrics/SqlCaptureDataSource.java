@@ -0,0 +1,282 @@
+package com.example.eclass.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * 包裝應用的 DataSource，把每條語句計入 {@link SqlStatementCounter}，並測量耗時和行數交給 {@link SlowQueryLog}。
+ * Hibernate 和 JdbcTemplate 的語句都經過這裡。查詢的耗時只計算在驅動中花費的時間：executeQuery 返回時記下執行時間，
+ * 再加上各次 ResultSet.next() 讀取結果的時間，調用方在兩行之間的處理 (如流式導出時寫響應) 不計入；
+ * 行數是實際讀取的行數，在結果集關閉時一併上報。更新和批處理的行數是受影響的行數。
+ * 繼承 DelegatingDataSource，連接池指標等仍能通過 unwrap 拿到底層的 HikariDataSource。
+ */
+public class SqlCaptureDataSource extends DelegatingDataSource {
+    
+    /** setNull 或 null 值；數組中的 null 表示沒有綁定 */
+    private static final Object NULL_PARAMETER = new Object();
+    
+    private final ObjectProvider<SlowQueryLog> slowQueryLogProvider;
+    private volatile SlowQueryLog slowQueryLog;
+    
+    public SqlCaptureDataSource(DataSource targetDataSource, ObjectProvider<SlowQueryLog> slowQueryLogProvider) {
+        super(targetDataSource);
+        this.slowQueryLogProvider = slowQueryLogProvider;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+    
+    /** 連接池在上下文啟動早期 (Flyway 遷移) 就會用到，日誌組件延遲到第一條語句時再取 */
+    private SlowQueryLog slowQueryLog() {
+        SlowQueryLog log = slowQueryLog;
+        if (log == null) {
+            log = slowQueryLogProvider.getObject();
+            slowQueryLog = log;
+        }
+        return log;
+    }
+    
+    private Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, new DelegatingHandler(connection) {
+            @Override
+            protected Object handle(Method method, Object[] args) throws Throwable {
+                Object result = invokeTarget(method, args);
+                // createStatement / prepareStatement / prepareCall
+                if (result instanceof Statement statement) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                    return proxy(method.getReturnType(), new StatementHandler(statement, sql));
+                }
+                return result;
+            }
+        });
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SqlCaptureDataSource.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+    
+    /** 綁定參數只記類型，字符串和字節數組附帶長度 */
+    private static String shape(Object value) {
+        if (value == null) {
+            return "?";
+        }
+        if (value == NULL_PARAMETER) {
+            return "NULL";
+        }
+        if (value instanceof CharSequence text) {
+            return "String(" + text.length() + ")";
+        }
+        if (value instanceof byte[] bytes) {
+            return "byte[" + bytes.length + "]";
+        }
+        return value.getClass().getSimpleName();
+    }
+    
+    /** 把調用轉給底層的 JDBC 對象；equals / hashCode 按代理對象本身的身份 */
+    private abstract static class DelegatingHandler implements InvocationHandler {
+        
+        protected final Object target;
+        
+        DelegatingHandler(Object target) {
+            this.target = target;
+        }
+        
+        @Override
+        public final Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("equals") && args != null && args.length == 1) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode") && args == null) {
+                return System.identityHashCode(proxy);
+            }
+            return handle(method, args);
+        }
+        
+        protected abstract Object handle(Method method, Object[] args) throws Throwable;
+        
+        protected Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+    
+    /**
+     * 一個 Statement / PreparedStatement 的狀態：綁定參數、批處理行數，以及還沒讀完的查詢。
+     * JDBC 對象不在線程間共享，這裡不需要同步。
+     */
+    private class StatementHandler extends DelegatingHandler {
+        
+        private final Statement statement;
+        private String sql;
+        private Object[] parameters = new Object[0];
+        private int batchSize;
+        
+        private String querySql;
+        private long queryExecuteNanos;
+        private long queryFetchNanos;
+        private long queryRows;
+        private boolean queryOpen;
+        
+        StatementHandler(Statement statement, String sql) {
+            super(statement);
+            this.statement = statement;
+            this.sql = sql;
+        }
+        
+        @Override
+        protected Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bind(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters = new Object[0];
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+                if (args != null && args.length == 1) {
+                    sql = (String) args[0];
+                }
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            } else if (name.equals("close")) {
+                finishQuery();
+            }
+            return invokeTarget(method, args);
+        }
+        
+        private void bind(int index, Object value) {
+            if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            }
+            parameters[index - 1] = value == null ? NULL_PARAMETER : value;
+        }
+        
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishQuery();
+            String executedSql = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+            SqlStatementCounter.recordStatement(executedSql);
+            String name = method.getName();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeTarget(method, args);
+            } catch (Throwable e) {
+                record(executedSql, System.nanoTime() - start, 0, -1);
+                throw e;
+            }
+            long nanos = System.nanoTime() - start;
+            switch (name) {
+                case "executeQuery" -> {
+                    querySql = executedSql;
+                    queryExecuteNanos = nanos;
+                    queryFetchNanos = 0;
+                    queryRows = 0;
+                    queryOpen = true;
+                    return proxy(ResultSet.class, new ResultSetHandler((ResultSet) result));
+                }
+                case "executeUpdate", "executeLargeUpdate" -> record(executedSql, nanos, 0, ((Number) result).longValue());
+                case "executeBatch" -> record(executedSql, nanos, 0, Arrays.stream((int[]) result).filter(n -> n > 0).sum());
+                case "executeLargeBatch" -> record(executedSql, nanos, 0, Arrays.stream((long[]) result).filter(n -> n > 0).sum());
+                default -> record(executedSql, nanos, 0, Boolean.TRUE.equals(result) ? -1 : statement.getUpdateCount());
+            }
+            return result;
+        }
+        
+        /** 查詢的行數在結果集關閉 (或語句關閉、重新執行) 時才知道，這時再記錄 */
+        private void finishQuery() {
+            if (queryOpen) {
+                queryOpen = false;
+                record(querySql, queryExecuteNanos, queryFetchNanos, queryRows);
+            }
+        }
+        
+        private void record(String executedSql, long executeNanos, long fetchNanos, long rows) {
+            long nanos = executeNanos + fetchNanos;
+            SlowQueryLog log = slowQueryLog();
+            if (log.isCaptured(nanos)) {
+                log.capture(executedSql, describeParameters(), nanos, fetchNanos, rows);
+            }
+            batchSize = 0;
+        }
+        
+        /** 如 [Long, String(12), NULL]；連續相同的類型合併 (IN 列表)，如 [Long × 40] */
+        private String describeParameters() {
+            StringBuilder sb = new StringBuilder("[");
+            int count = parameters.length;
+            while (count > 0 && parameters[count - 1] == null) {
+                count--;
+            }
+            int i = 0;
+            while (i < count) {
+                String shape = shape(parameters[i]);
+                int run = 1;
+                while (i + run < count && shape.equals(shape(parameters[i + run]))) {
+                    run++;
+                }
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(shape);
+                if (run > 1) {
+                    sb.append(" × ").append(run);
+                }
+                i += run;
+            }
+            sb.append(']');
+            if (batchSize > 0) {
+                sb.append(" 批處理 ").append(batchSize).append(" 條");
+            }
+            return sb.toString();
+        }
+        
+        private class ResultSetHandler extends DelegatingHandler {
+            
+            ResultSetHandler(ResultSet resultSet) {
+                super(resultSet);
+            }
+            
+            @Override
+            protected Object handle(Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.equals("next")) {
+                    long start = System.nanoTime();
+                    Object result = invokeTarget(method, args);
+                    queryFetchNanos += System.nanoTime() - start;
+                    if (Boolean.TRUE.equals(result)) {
+                        queryRows++;
+                    }
+                    return result;
+                }
+                Object result = invokeTarget(method, args);
+                if (name.equals("close")) {
+                    finishQuery();
+                }
+                return result;
+            }
+        }
+    }
+}
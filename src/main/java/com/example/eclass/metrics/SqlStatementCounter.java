@@ -0,0 +1,120 @@
+package com.example.eclass.metrics;
+
+import com.vaadin.flow.component.UI;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 統計當前線程上執行的 SQL 語句，按語句文本分組，同一條語句反復出現通常就是 N+1 查詢。
+ * 語句由 {@link SqlCaptureDataSource} 在每次 execute 時上報，Hibernate 和 JdbcTemplate 的語句都計入，
+ * 一次 JDBC 批處理計為一條；只在 start() 和 close() 之間計數。
+ * <p>
+ * 每個 HTTP 請求 (包括 Vaadin 的 UIDL 請求) 由 {@link SqlBudgetFilter} 計數，集成測試中也可以直接用作斷言：
+ * <pre>
+ * try (SqlStatementCounter counter = SqlStatementCounter.start()) {
+ *     submissionService.findSummariesByTeacher(teacher);
+ *     counter.assertAtMost(1);
+ * }
+ * </pre>
+ * 計數器可以嵌套，內層的語句同時計入外層。
+ */
+public final class SqlStatementCounter implements AutoCloseable {
+    
+    private static final ThreadLocal<SqlStatementCounter> CURRENT = new ThreadLocal<>();
+    
+    private final SqlStatementCounter outer;
+    private final Map<String, Integer> counts = new HashMap<>();
+    private int total;
+    private UI ui;
+    
+    private SqlStatementCounter(SqlStatementCounter outer) {
+        this.outer = outer;
+    }
+    
+    /** 開始在當前線程上計數，用 try-with-resources 結束 */
+    public static SqlStatementCounter start() {
+        SqlStatementCounter counter = new SqlStatementCounter(CURRENT.get());
+        CURRENT.set(counter);
+        return counter;
+    }
+    
+    /** 由 SqlCaptureDataSource 調用，當前線程沒有計數器時什麼都不做 */
+    static void recordStatement(String sql) {
+        SqlStatementCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.record(sql);
+        }
+    }
+    
+    private void record(String sql) {
+        total++;
+        counts.merge(sql, 1, Integer::sum);
+        if (ui == null) {
+            ui = UI.getCurrent();
+        }
+        if (outer != null) {
+            outer.record(sql);
+        }
+    }
+    
+    public int getTotal() {
+        return total;
+    }
+    
+    /** 執行次數最多的那條語句的次數 */
+    public int getMaxRepeats() {
+        int max = 0;
+        for (int count : counts.values()) {
+            max = Math.max(max, count);
+        }
+        return max;
+    }
+    
+    /** 執行次數最多的語句，次數從高到低 */
+    public List<Map.Entry<String, Integer>> getTopStatements(int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        return entries.subList(0, Math.min(limit, entries.size()));
+    }
+    
+    /** 執行語句時所在的 Vaadin UI，不是 UIDL 請求時為 null */
+    UI getUi() {
+        return ui;
+    }
+    
+    /** 語句總數超過 max 時拋出 AssertionError */
+    public void assertAtMost(int max) {
+        if (total > max) {
+            throw new AssertionError("執行了 " + total + " 條 SQL，預期最多 " + max + " 條" + describeTopStatements(3));
+        }
+    }
+    
+    /** 任何一條語句執行超過 max 次時拋出 AssertionError */
+    public void assertRepeatsAtMost(int max) {
+        int repeats = getMaxRepeats();
+        if (repeats > max) {
+            throw new AssertionError("同一條 SQL 執行了 " + repeats + " 次，預期最多 " + max + " 次" + describeTopStatements(3));
+        }
+    }
+    
+    /** 每行一條：次數 × SQL */
+    public String describeTopStatements(int limit) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : getTopStatements(limit)) {
+            sb.append("\n  ").append(entry.getValue()).append(" × ").append(entry.getKey());
+        }
+        return sb.toString();
+    }
+    
+    @Override
+    public void close() {
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.eclass.repository;
 
+import com.example.eclass.dto.AssignmentWatermark;
+import com.example.eclass.dto.TeacherStats;
 import com.example.eclass.entity.Assignment;
 import com.example.eclass.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,12 +10,13 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     
-
+    
     
     @Query("SELECT a FROM Assignment a JOIN FETCH a.teacher ORDER BY a.createdDate DESC")
     List<Assignment> findAllByOrderByCreatedDateDesc();
@@ -38,4 +41,23 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     
     @Query("SELECT a FROM Assignment a JOIN FETCH a.teacher WHERE a.teacher = :teacher")
     List<Assignment> findByTeacher(@Param("teacher") User teacher);
+    
+    @Query("SELECT a FROM Assignment a JOIN FETCH a.teacher WHERE a.id IN :ids")
+    List<Assignment> findWithTeacherByIdIn(@Param("ids") Collection<Long> ids);
+    
+    long countByTeacher(User teacher);
+    
+    @Query("SELECT new com.example.eclass.dto.AssignmentWatermark(COUNT(a), MAX(a.id), MAX(a.updatedDate)) FROM Assignment a")
+    AssignmentWatermark findWatermark();
+    
+    @Query("SELECT COUNT(a) FROM Assignment a WHERE a.dueDate < :now")
+    long countOverdue(@Param("now") LocalDateTime now);
+    
+    @Query("SELECT COUNT(a) FROM Assignment a WHERE a.dueDate > :now")
+    long countUpcoming(@Param("now") LocalDateTime now);
+    
+    @Query("SELECT new com.example.eclass.dto.TeacherStats(COUNT(DISTINCT a.id), COUNT(s.id), " +
+           "SUM(CASE WHEN s.id IS NOT NULL AND s.grade IS NULL THEN 1L ELSE 0L END)) " +
+           "FROM Assignment a LEFT JOIN a.submissions s WHERE a.teacher = :teacher")
+    TeacherStats computeTeacherStats(@Param("teacher") User teacher);
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.example.eclass.repository;
+
+import com.example.eclass.entity.Assignment;
+import com.example.eclass.entity.Attachment;
+import com.example.eclass.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
+    
+    @Query("SELECT a FROM Attachment a WHERE a.submission.id = :submissionId ORDER BY a.uploadedDate, a.id")
+    List<Attachment> findBySubmissionId(@Param("submissionId") Long submissionId);
+    
+    @Query("SELECT COALESCE(SUM(a.size), 0) FROM Attachment a WHERE a.submission.id = :submissionId")
+    long sumSizeBySubmissionId(@Param("submissionId") Long submissionId);
+    
+    @Query("SELECT COALESCE(SUM(a.size), 0) FROM Attachment a " +
+           "WHERE a.submission.assignment = :assignment AND a.submission.student = :student")
+    long sumSizeByAssignmentAndStudent(@Param("assignment") Assignment assignment, @Param("student") User student);
+    
+    boolean existsBySha256(String sha256);
+}
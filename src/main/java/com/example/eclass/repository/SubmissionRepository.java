@@ -1,15 +1,30 @@
 package com.example.eclass.repository;
 
+import com.example.eclass.dto.GradeExportRow;
+import com.example.eclass.dto.SubmissionBody;
+import com.example.eclass.dto.SubmissionCounts;
+import com.example.eclass.dto.SubmissionStudentRef;
+import com.example.eclass.dto.SubmissionSummary;
 import com.example.eclass.entity.Assignment;
 import com.example.eclass.entity.Submission;
 import com.example.eclass.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
@@ -26,6 +41,9 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     
     boolean existsByAssignmentAndStudent(Assignment assignment, User student);
     
+    @Query("SELECT s.assignment.id FROM Submission s WHERE s.student = :student")
+    List<Long> findSubmittedAssignmentIds(@Param("student") User student);
+    
     @Query("SELECT s FROM Submission s WHERE s.assignment.teacher = :teacher ORDER BY s.submittedDate DESC")
     List<Submission> findByTeacher(@Param("teacher") User teacher);
     
@@ -34,4 +52,113 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     
     @Query("SELECT COUNT(s) FROM Submission s WHERE s.assignment = :assignment")
     long countByAssignment(@Param("assignment") Assignment assignment);
+    
+    long countByStudent(User student);
+    
+    @Query("SELECT COUNT(s) FROM Submission s WHERE s.grade IS NULL AND s.assignment.teacher = :teacher")
+    long countUngraded(@Param("teacher") User teacher);
+    
+    @Query("SELECT new com.example.eclass.dto.SubmissionCounts(a.id, COUNT(s), " +
+           "SUM(CASE WHEN s.grade IS NOT NULL THEN 1L ELSE 0L END), " +
+           "SUM(CASE WHEN s.submittedDate > a.dueDate THEN 1L ELSE 0L END)) " +
+           "FROM Submission s JOIN s.assignment a WHERE a IN :assignments GROUP BY a.id")
+    List<SubmissionCounts> countGroupedByAssignment(@Param("assignments") Collection<Assignment> assignments);
+    
+    @Query("SELECT s FROM Submission s JOIN FETCH s.assignment JOIN FETCH s.student WHERE s.id = :id")
+    Optional<Submission> findWithDetailsById(@Param("id") Long id);
+    
+    /** 加行鎖 (SELECT ... FOR UPDATE) 讀取提交，同一提交上的附件配額檢查和寫入依次進行 */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Submission s JOIN FETCH s.assignment JOIN FETCH s.student WHERE s.id = :id")
+    Optional<Submission> findWithDetailsByIdForUpdate(@Param("id") Long id);
+    
+    @Query("SELECT new com.example.eclass.dto.SubmissionSummary(s.id, a.id, a.title, st.fullName, s.submittedDate, a.dueDate, s.grade) " +
+           "FROM Submission s JOIN s.assignment a JOIN s.student st " +
+           "WHERE a.teacher = :teacher ORDER BY s.submittedDate DESC")
+    List<SubmissionSummary> findSummariesByTeacher(@Param("teacher") User teacher);
+    
+    @Query("SELECT new com.example.eclass.dto.SubmissionStudentRef(s.id, st.username) " +
+           "FROM Submission s JOIN s.student st WHERE s.assignment = :assignment")
+    List<SubmissionStudentRef> findStudentRefsByAssignment(@Param("assignment") Assignment assignment);
+    
+    @Query("SELECT new com.example.eclass.dto.SubmissionSummary(s.id, a.id, a.title, st.fullName, s.submittedDate, a.dueDate, s.grade, " +
+           "CASE WHEN LENGTH(s.feedback) > 0 THEN true ELSE false END) " +
+           "FROM Submission s JOIN s.assignment a JOIN s.student st " +
+           "WHERE s.student = :student ORDER BY s.submittedDate DESC, s.id DESC")
+    List<SubmissionSummary> findFirstSummariesByStudent(@Param("student") User student, Pageable pageable);
+    
+    @Query("SELECT new com.example.eclass.dto.SubmissionSummary(s.id, a.id, a.title, st.fullName, s.submittedDate, a.dueDate, s.grade, " +
+           "CASE WHEN LENGTH(s.feedback) > 0 THEN true ELSE false END) " +
+           "FROM Submission s JOIN s.assignment a JOIN s.student st " +
+           "WHERE s.student = :student " +
+           "AND s.submittedDate <= :submittedDate " +
+           "AND (s.submittedDate < :submittedDate OR s.id < :id) " +
+           "ORDER BY s.submittedDate DESC, s.id DESC")
+    List<SubmissionSummary> findSummariesByStudentBefore(@Param("student") User student,
+                                                         @Param("submittedDate") LocalDateTime submittedDate,
+                                                         @Param("id") Long id,
+                                                         Pageable pageable);
+    
+    @Query("SELECT new com.example.eclass.dto.SubmissionSummary(s.id, a.id, a.title, st.fullName, s.submittedDate, a.dueDate, s.grade) " +
+           "FROM Submission s JOIN s.assignment a JOIN s.student st " +
+           "WHERE s.assignment = :assignment ORDER BY s.submittedDate DESC, s.id DESC")
+    List<SubmissionSummary> findFirstSummariesByAssignment(@Param("assignment") Assignment assignment, Pageable pageable);
+    
+    @Query("SELECT new com.example.eclass.dto.SubmissionSummary(s.id, a.id, a.title, st.fullName, s.submittedDate, a.dueDate, s.grade) " +
+           "FROM Submission s JOIN s.assignment a JOIN s.student st " +
+           "WHERE s.assignment = :assignment " +
+           "AND s.submittedDate <= :submittedDate " +
+           "AND (s.submittedDate < :submittedDate OR s.id < :id) " +
+           "ORDER BY s.submittedDate DESC, s.id DESC")
+    List<SubmissionSummary> findSummariesByAssignmentBefore(@Param("assignment") Assignment assignment,
+                                                            @Param("submittedDate") LocalDateTime submittedDate,
+                                                            @Param("id") Long id,
+                                                            Pageable pageable);
+    
+    /**
+     * 鍵集分頁：按 (submittedDate, id) 倒序，從 after 之後 seek 讀取一頁，after 為 null 時讀取第一頁。
+     * 冗餘的 submittedDate &lt;= 條件讓數據庫能在 (student_id, submitted_date DESC, id DESC) 索引上直接定位，
+     * 深頁不需要掃描前面的行。
+     */
+    default List<SubmissionSummary> findSummaryPageByStudent(User student, SubmissionSummary after, int limit) {
+        Pageable pageable = PageRequest.ofSize(limit);
+        return after == null
+            ? findFirstSummariesByStudent(student, pageable)
+            : findSummariesByStudentBefore(student, after.getSubmittedDate(), after.getId(), pageable);
+    }
+    
+    default List<SubmissionSummary> findSummaryPageByAssignment(Assignment assignment, SubmissionSummary after, int limit) {
+        Pageable pageable = PageRequest.ofSize(limit);
+        return after == null
+            ? findFirstSummariesByAssignment(assignment, pageable)
+            : findSummariesByAssignmentBefore(assignment, after.getSubmittedDate(), after.getId(), pageable);
+    }
+    
+    @Query("SELECT new com.example.eclass.dto.SubmissionSummary(s.id, a.id, a.title, st.fullName, s.submittedDate, a.dueDate, s.grade, " +
+           "CASE WHEN LENGTH(s.feedback) > 0 THEN true ELSE false END) " +
+           "FROM Submission s JOIN s.assignment a JOIN s.student st " +
+           "WHERE s.assignment = :assignment AND s.student = :student")
+    Optional<SubmissionSummary> findSummaryByAssignmentAndStudent(@Param("assignment") Assignment assignment,
+                                                                  @Param("student") User student);
+    
+    @Query("SELECT new com.example.eclass.dto.SubmissionBody(s.id, s.content, s.feedback) FROM Submission s WHERE s.id = :id")
+    Optional<SubmissionBody> findBodyById(@Param("id") Long id);
+    
+    /**
+     * 成績導出用的游標查詢，調用方必須在只讀事務中消費並關閉返回的 Stream。
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.example.eclass.dto.GradeExportRow(s.id, a.id, a.title, st.username, st.fullName, " +
+           "s.submittedDate, a.dueDate, s.grade, s.feedback) " +
+           "FROM Submission s JOIN s.assignment a JOIN s.student st " +
+           "WHERE a.teacher = :teacher ORDER BY a.id, st.username")
+    Stream<GradeExportRow> streamGradesByTeacher(@Param("teacher") User teacher);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.example.eclass.dto.GradeExportRow(s.id, a.id, a.title, st.username, st.fullName, " +
+           "s.submittedDate, a.dueDate, s.grade, s.feedback) " +
+           "FROM Submission s JOIN s.assignment a JOIN s.student st " +
+           "WHERE a = :assignment AND a.teacher = :teacher ORDER BY st.username")
+    Stream<GradeExportRow> streamGradesByAssignment(@Param("teacher") User teacher,
+                                                    @Param("assignment") Assignment assignment);
 }
\ No newline at end of file
@@ -1,17 +1,20 @@
 package com.example.eclass.repository;
 
+import com.example.eclass.dto.AdminStats;
 import com.example.eclass.entity.Role;
 import com.example.eclass.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    
-    Optional<User> findByUsername(String username);
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     
     Optional<User> findByEmail(String email);
     
@@ -23,7 +26,46 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     boolean existsByEmail(String email);
     
+    long countByRole(Role role);
+    
+    @Query("SELECT new com.example.eclass.dto.AdminStats(COUNT(u), " +
+           "SUM(CASE WHEN u.role = com.example.eclass.entity.Role.TEACHER THEN 1L ELSE 0L END), " +
+           "SUM(CASE WHEN u.role = com.example.eclass.entity.Role.STUDENT THEN 1L ELSE 0L END)) " +
+           "FROM User u")
+    AdminStats computeAdminStats();
+    
     List<User> findByFullNameContainingIgnoreCase(String fullName);
     
     List<User> findByUsernameContainingIgnoreCase(String username);
+    
+    @Query("SELECT u FROM User u WHERE (:role IS NULL OR u.role = :role) AND " +
+           "(:pattern = '%' OR LOWER(u.fullName) LIKE :pattern ESCAPE '\\' " +
+           "OR LOWER(u.username) LIKE :pattern ESCAPE '\\' " +
+           "OR LOWER(u.email) LIKE :pattern ESCAPE '\\')")
+    List<User> searchByPattern(@Param("pattern") String pattern, @Param("role") Role role, Pageable pageable);
+    
+    @Query("SELECT COUNT(u) FROM User u WHERE (:role IS NULL OR u.role = :role) AND " +
+           "(:pattern = '%' OR LOWER(u.fullName) LIKE :pattern ESCAPE '\\' " +
+           "OR LOWER(u.username) LIKE :pattern ESCAPE '\\' " +
+           "OR LOWER(u.email) LIKE :pattern ESCAPE '\\')")
+    long countByPattern(@Param("pattern") String pattern, @Param("role") Role role);
+    
+    default List<User> search(String filter, Role role, int offset, int limit, Sort sort) {
+        return searchByPattern(toLikePattern(filter), role, new OffsetPageRequest(offset, limit, sort));
+    }
+    
+    default long countSearch(String filter, Role role) {
+        return countByPattern(toLikePattern(filter), role);
+    }
+    
+    private static String toLikePattern(String filter) {
+        if (filter == null || filter.isBlank()) {
+            return "%";
+        }
+        String escaped = filter.trim().toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
 }
\ No newline at end of file
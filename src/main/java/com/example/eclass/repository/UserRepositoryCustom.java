@@ -0,0 +1,10 @@
+package com.example.eclass.repository;
+
+import com.example.eclass.entity.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    
+    Optional<User> findByUsername(String username);
+}
@@ -0,0 +1,354 @@
+package com.example.eclass.search;
+
+import com.example.eclass.dto.AssignmentWatermark;
+import com.example.eclass.entity.Assignment;
+import com.example.eclass.repository.AssignmentRepository;
+import com.example.eclass.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cjk.CJKAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作業標題和描述的全文索引 (Lucene 倒排索引)。
+ * 啟動時從數據庫建立索引，之後由 AssignmentService 在保存和刪除提交後同步更新。
+ * 更新後只做近實時刷新 (從 IndexWriter 重新打開搜索器)，不逐條提交；
+ * 未提交的更改每隔 eclass.search.commit-interval-ms 和關閉時提交到目錄。
+ * 每次提交在提交數據中記錄已寫入的最大作業 ID 和修改時間，啟動時連同文檔數與數據庫比較，
+ * 崩潰丟失了未提交的修改或數據庫從備份恢復時都會重建索引。
+ * 中英文混合文本使用 CJKAnalyzer：中文按二元組切分，英文按單詞切分並轉小寫。
+ */
+@Component
+public class AssignmentSearchIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(AssignmentSearchIndex.class);
+    
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_DESCRIPTION = "description";
+    private static final float TITLE_BOOST = 2.0f;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final String COMMIT_MAX_ID = "maxId";
+    private static final String COMMIT_MAX_UPDATED_DATE = "maxUpdatedDate";
+    
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+    
+    /** 索引目錄，留空則使用內存索引 */
+    @Value("${eclass.search.index-dir:}")
+    private String indexDir;
+    
+    @Value("${eclass.search.commit-interval-ms:5000}")
+    private long commitIntervalMillis;
+    
+    private final ScheduledExecutorService committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private Directory directory;
+    private Analyzer analyzer;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    
+    /** 已寫入索引的高水位，文檔寫入之後才推進，提交時記錄的值不會超過提交中實際包含的文檔 */
+    private final Object watermarkLock = new Object();
+    private Long indexedMaxId;
+    private LocalDateTime indexedMaxUpdatedDate;
+    
+    @PostConstruct
+    public void open() throws IOException {
+        directory = indexDir.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(indexDir));
+        analyzer = new CJKAnalyzer();
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+        
+        // 磁盤索引的文檔數和提交時的高水位都與數據庫一致時直接復用，否則重建
+        readCommitData();
+        AssignmentWatermark indexed = indexedWatermark();
+        AssignmentWatermark database = assignmentRepository.findWatermark();
+        if (!indexed.equals(database)) {
+            log.info("作業全文索引與數據庫不一致，重建索引: 索引 {}, 數據庫 {}", indexed, database);
+            rebuild();
+        }
+        committer.scheduleWithFixedDelay(this::commitQuietly, commitIntervalMillis, commitIntervalMillis,
+            TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        committer.shutdownNow();
+        commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+    
+    /**
+     * 從數據庫分批讀取所有作業並重建索引。
+     */
+    public synchronized void rebuild() throws IOException {
+        long start = System.currentTimeMillis();
+        synchronized (watermarkLock) {
+            indexedMaxId = null;
+            indexedMaxUpdatedDate = null;
+        }
+        writer.deleteAll();
+        
+        PageRequest pageRequest = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id"));
+        Page<Assignment> page;
+        do {
+            page = assignmentRepository.findAll(pageRequest);
+            // 重建期間 index() 可能同時寫入同一作業，用 updateDocument 避免產生重複文檔
+            for (Assignment assignment : page) {
+                writer.updateDocument(idTerm(assignment.getId()),
+                    toDocument(assignment.getId(), assignment.getTitle(), assignment.getDescription()));
+                advanceWatermark(assignment.getId(), assignment.getUpdatedDate());
+            }
+            pageRequest = pageRequest.next();
+        } while (page.hasNext());
+        
+        commitWithWatermark();
+        searcherManager.maybeRefreshBlocking();
+        log.info("作業全文索引已重建: {} 條, 耗時 {} ms", writer.getDocStats().numDocs, System.currentTimeMillis() - start);
+    }
+    
+    /**
+     * 在當前事務提交後把作業寫入索引；沒有事務時立即寫入。
+     */
+    public void indexAfterCommit(Assignment assignment) {
+        Long id = assignment.getId();
+        String title = assignment.getTitle();
+        String description = assignment.getDescription();
+        // 修改時間由 flush 時的 @PreUpdate 設置，要到提交後才讀取
+        TransactionHooks.afterCommit(() -> index(id, title, description, assignment.getUpdatedDate()));
+    }
+    
+    /**
+     * 在當前事務提交後從索引中刪除作業；沒有事務時立即刪除。
+     */
+    public void removeAfterCommit(Long id) {
+        TransactionHooks.afterCommit(() -> remove(id));
+    }
+    
+    /** IndexWriter 本身是線程安全的，寫入不需要加鎖 */
+    public void index(Long id, String title, String description, LocalDateTime updatedDate) {
+        try {
+            writer.updateDocument(idTerm(id), toDocument(id, title, description));
+            advanceWatermark(id, updatedDate);
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("更新作業索引失敗: " + id, e);
+        }
+    }
+    
+    public void remove(Long id) {
+        try {
+            writer.deleteDocuments(idTerm(id));
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("刪除作業索引失敗: " + id, e);
+        }
+    }
+    
+    /**
+     * 把未提交的更改寫入索引目錄。
+     */
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            commitWithWatermark();
+        }
+    }
+    
+    private void commitWithWatermark() throws IOException {
+        Map<String, String> commitData = new HashMap<>();
+        synchronized (watermarkLock) {
+            if (indexedMaxId != null) {
+                commitData.put(COMMIT_MAX_ID, indexedMaxId.toString());
+            }
+            if (indexedMaxUpdatedDate != null) {
+                commitData.put(COMMIT_MAX_UPDATED_DATE, indexedMaxUpdatedDate.toString());
+            }
+        }
+        writer.setLiveCommitData(commitData.entrySet());
+        writer.commit();
+    }
+    
+    /** 從最近一次提交的提交數據恢復高水位 */
+    private void readCommitData() {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData == null) {
+            return;
+        }
+        for (Map.Entry<String, String> entry : commitData) {
+            if (COMMIT_MAX_ID.equals(entry.getKey())) {
+                indexedMaxId = Long.valueOf(entry.getValue());
+            } else if (COMMIT_MAX_UPDATED_DATE.equals(entry.getKey())) {
+                indexedMaxUpdatedDate = LocalDateTime.parse(entry.getValue());
+            }
+        }
+    }
+    
+    private AssignmentWatermark indexedWatermark() {
+        synchronized (watermarkLock) {
+            return new AssignmentWatermark((long) writer.getDocStats().numDocs, indexedMaxId, indexedMaxUpdatedDate);
+        }
+    }
+    
+    /**
+     * 刪除不回退高水位：刪掉最大 ID 或最近修改的作業後，下次啟動會多重建一次。
+     */
+    private void advanceWatermark(Long id, LocalDateTime updatedDate) {
+        synchronized (watermarkLock) {
+            if (indexedMaxId == null || id > indexedMaxId) {
+                indexedMaxId = id;
+            }
+            if (updatedDate != null && (indexedMaxUpdatedDate == null || updatedDate.isAfter(indexedMaxUpdatedDate))) {
+                indexedMaxUpdatedDate = updatedDate;
+            }
+        }
+    }
+    
+    /** 定時任務：提交，並刷新寫入時因其他線程正在刷新而跳過的搜索器 */
+    private void commitQuietly() {
+        try {
+            commit();
+            searcherManager.maybeRefresh();
+        } catch (IOException | RuntimeException e) {
+            log.warn("提交作業索引失敗", e);
+        }
+    }
+    
+    /**
+     * 按相關度排序返回一頁作業 ID，標題匹配的權重高於描述。
+     */
+    public List<Long> search(String text, int offset, int limit) {
+        Query query = buildQuery(text);
+        if (query == null || limit <= 0) {
+            return List.of();
+        }
+        
+        IndexSearcher searcher = acquire();
+        try {
+            TopDocs topDocs = searcher.search(query, offset + limit);
+            StoredFields storedFields = searcher.storedFields();
+            List<Long> ids = new ArrayList<>(limit);
+            ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+            for (int i = offset; i < scoreDocs.length; i++) {
+                ids.add(Long.valueOf(storedFields.document(scoreDocs[i].doc).get(FIELD_ID)));
+            }
+            return ids;
+        } catch (IOException e) {
+            throw new UncheckedIOException("作業全文搜索失敗", e);
+        } finally {
+            release(searcher);
+        }
+    }
+    
+    public int count(String text) {
+        Query query = buildQuery(text);
+        if (query == null) {
+            return 0;
+        }
+        
+        IndexSearcher searcher = acquire();
+        try {
+            return searcher.count(query);
+        } catch (IOException e) {
+            throw new UncheckedIOException("作業全文搜索失敗", e);
+        } finally {
+            release(searcher);
+        }
+    }
+    
+    private Query buildQuery(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        QueryBuilder builder = new QueryBuilder(analyzer);
+        Query titleQuery = builder.createBooleanQuery(FIELD_TITLE, text);
+        Query descriptionQuery = builder.createBooleanQuery(FIELD_DESCRIPTION, text);
+        if (titleQuery == null && descriptionQuery == null) {
+            return null;
+        }
+        
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        if (titleQuery != null) {
+            query.add(new BoostQuery(titleQuery, TITLE_BOOST), BooleanClause.Occur.SHOULD);
+        }
+        if (descriptionQuery != null) {
+            query.add(descriptionQuery, BooleanClause.Occur.SHOULD);
+        }
+        return query.build();
+    }
+    
+    private Document toDocument(Long id, String title, String description) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, id.toString(), Field.Store.YES));
+        document.add(new TextField(FIELD_TITLE, title != null ? title : "", Field.Store.NO));
+        document.add(new TextField(FIELD_DESCRIPTION, description != null ? description : "", Field.Store.NO));
+        return document;
+    }
+    
+    private Term idTerm(Long id) {
+        return new Term(FIELD_ID, id.toString());
+    }
+    
+    private IndexSearcher acquire() {
+        try {
+            return searcherManager.acquire();
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法打開作業索引", e);
+        }
+    }
+    
+    private void release(IndexSearcher searcher) {
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            log.warn("釋放作業索引搜索器失敗", e);
+        }
+    }
+}
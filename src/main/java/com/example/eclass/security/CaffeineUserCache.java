@@ -0,0 +1,60 @@
+package com.example.eclass.security;
+
+import com.example.eclass.util.TransactionHooks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 登錄時使用的 UserDetails 緩存，按用戶名存放不可變的 CustomUserPrincipal。
+ * 有容量上限和寫入後過期時間，賬戶變更時由 UserService 主動失效。
+ */
+@Component
+public class CaffeineUserCache implements UserCache {
+    
+    private final Cache<String, UserDetails> cache;
+    
+    public CaffeineUserCache(@Value("${eclass.security.user-cache.max-size:10000}") long maxSize,
+                             @Value("${eclass.security.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+    
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return cache.getIfPresent(username);
+    }
+    
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), user);
+    }
+    
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.invalidate(username);
+    }
+    
+    /**
+     * 立即失效，並在當前事務提交後再失效一次，
+     * 避免事務提交前有並發登錄把舊數據重新放入緩存。
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        removeUserFromCache(username);
+        TransactionHooks.afterCommit(() -> removeUserFromCache(username));
+    }
+    
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+}
@@ -1,56 +1,111 @@
 package com.example.eclass.security;
 
+import com.example.eclass.entity.Role;
 import com.example.eclass.entity.User;
 import com.example.eclass.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.Collections;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CaffeineUserCache userCache;
+    
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetails cached = userCache.getUserFromCache(username);
+        if (cached != null) {
+            return cached;
+        }
+        
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("找不到用戶: " + username));
         
-        return new CustomUserPrincipal(user);
+        CustomUserPrincipal principal = new CustomUserPrincipal(user);
+        userCache.putUserInCache(principal);
+        return principal;
+    }
+    
+    /**
+     * 登錄成功且舊哈希需要升級（強度變化或缺少編碼前綴）時由 Spring Security 調用。
+     * 加載實體後修改，由髒檢查更新這一行；批量 UPDATE 語句會讓 Hibernate 清空整個 User 二級緩存區域。
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("找不到用戶: " + user.getUsername()));
+        entity.setPassword(newPassword);
+        userCache.evict(user.getUsername());
+        
+        if (user instanceof CustomUserPrincipal principal) {
+            return principal.withPassword(newPassword);
+        }
+        return loadUserByUsername(user.getUsername());
     }
     
-    public static class CustomUserPrincipal implements UserDetails {
-        private final User user;
+    /**
+     * 登錄主體只保存認證需要的字段，不持有 User 實體，可以在緩存和會話之間安全共享。
+     * 故意不實現 CredentialsContainer，認證成功後 Spring Security 不會擦除緩存中的密碼哈希。
+     */
+    public static final class CustomUserPrincipal implements UserDetails {
+        private final Long id;
+        private final String username;
+        private final String password;
+        private final Role role;
+        private final boolean enabled;
         
         public CustomUserPrincipal(User user) {
-            this.user = user;
+            this(user.getId(), user.getUsername(), user.getPassword(), user.getRole(), user.isEnabled());
         }
         
-        public User getUser() {
-            return user;
+        public CustomUserPrincipal(Long id, String username, String password, Role role, boolean enabled) {
+            this.id = id;
+            this.username = username;
+            this.password = password;
+            this.role = role;
+            this.enabled = enabled;
+        }
+        
+        public CustomUserPrincipal withPassword(String newPassword) {
+            return new CustomUserPrincipal(id, username, newPassword, role, enabled);
+        }
+        
+        public Long getId() {
+            return id;
+        }
+        
+        public Role getRole() {
+            return role;
         }
         
         @Override
         public Collection<? extends GrantedAuthority> getAuthorities() {
-            return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
+            return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()));
         }
         
         @Override
         public String getPassword() {
-            return user.getPassword();
+            return password;
         }
         
         @Override
         public String getUsername() {
-            return user.getUsername();
+            return username;
         }
         
         @Override
@@ -70,7 +125,17 @@ public class CustomUserDetailsService implements UserDetailsService {
         
         @Override
         public boolean isEnabled() {
-            return user.isEnabled();
+            return enabled;
+        }
+        
+        @Override
+        public String toString() {
+            return "CustomUserPrincipal{" +
+                    "id=" + id +
+                    ", username='" + username + '\'' +
+                    ", role=" + role +
+                    ", enabled=" + enabled +
+                    '}';
         }
     }
 }
\ No newline at end of file
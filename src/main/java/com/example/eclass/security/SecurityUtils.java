@@ -2,6 +2,7 @@ package com.example.eclass.security;
 
 import com.example.eclass.entity.Role;
 import com.example.eclass.entity.User;
+import com.example.eclass.repository.UserRepository;
 import com.vaadin.flow.spring.security.AuthenticationContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,14 +16,23 @@ public class SecurityUtils {
     @Autowired
     private AuthenticationContext authenticationContext;
     
-    public Optional<User> getAuthenticatedUser() {
+    @Autowired
+    private UserRepository userRepository;
+    
+    public Optional<CustomUserDetailsService.CustomUserPrincipal> getAuthenticatedPrincipal() {
         return authenticationContext.getAuthenticatedUser(UserDetails.class)
-                .map(userDetails -> {
-                    if (userDetails instanceof CustomUserDetailsService.CustomUserPrincipal) {
-                        return ((CustomUserDetailsService.CustomUserPrincipal) userDetails).getUser();
-                    }
-                    return null;
-                });
+                .filter(CustomUserDetailsService.CustomUserPrincipal.class::isInstance)
+                .map(CustomUserDetailsService.CustomUserPrincipal.class::cast);
+    }
+    
+    /**
+     * 登錄主體只保存 ID，這裡按 ID 載入當前的 User 實體（通常命中二級緩存）。
+     * 每次調用都執行一次 findById，未命中緩存時就是一條查詢：視圖應在構建或刷新時取一次並保存，
+     * 只需要 ID、用戶名或角色時使用 {@link #getAuthenticatedPrincipal()} 或 {@link #hasRole}。
+     */
+    public Optional<User> getAuthenticatedUser() {
+        return getAuthenticatedPrincipal()
+                .flatMap(principal -> userRepository.findById(principal.getId()));
     }
     
     public boolean isUserLoggedIn() {
@@ -30,8 +40,8 @@ public class SecurityUtils {
     }
     
     public boolean hasRole(Role role) {
-        return getAuthenticatedUser()
-                .map(user -> user.getRole() == role)
+        return getAuthenticatedPrincipal()
+                .map(principal -> principal.getRole() == role)
                 .orElse(false);
     }
     
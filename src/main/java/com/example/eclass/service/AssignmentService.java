@@ -3,21 +3,29 @@ package com.example.eclass.service;
 import com.example.eclass.entity.Assignment;
 import com.example.eclass.entity.User;
 import com.example.eclass.repository.AssignmentRepository;
+import com.example.eclass.search.AssignmentSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
-@Transactional
+@Transactional(readOnly = true)
 public class AssignmentService {
     
     @Autowired
     private AssignmentRepository assignmentRepository;
     
+    @Autowired
+    private AssignmentSearchIndex assignmentSearchIndex;
+    
     public List<Assignment> findAll() {
         return assignmentRepository.findAllByOrderByCreatedDateDesc();
     }
@@ -30,24 +38,32 @@ public class AssignmentService {
         return assignmentRepository.findByTeacherOrderByCreatedDateDesc(teacher);
     }
     
+    @Transactional
     public Assignment save(Assignment assignment) {
         if (assignment.getCreatedDate() == null) {
             assignment.setCreatedDate(LocalDateTime.now());
         }
-        return assignmentRepository.save(assignment);
+        Assignment saved = assignmentRepository.save(assignment);
+        assignmentSearchIndex.indexAfterCommit(saved);
+        return saved;
     }
     
+    @Transactional
     public Assignment createAssignment(String title, String description, LocalDateTime dueDate, User teacher) {
         Assignment assignment = new Assignment(title, description, dueDate, teacher);
         return save(assignment);
     }
     
+    @Transactional
     public void delete(Assignment assignment) {
         assignmentRepository.delete(assignment);
+        assignmentSearchIndex.removeAfterCommit(assignment.getId());
     }
     
+    @Transactional
     public void deleteById(Long id) {
         assignmentRepository.deleteById(id);
+        assignmentSearchIndex.removeAfterCommit(id);
     }
     
     public List<Assignment> findUpcomingAssignments() {
@@ -62,6 +78,24 @@ public class AssignmentService {
         return assignmentRepository.findByTitleContainingIgnoreCase(title);
     }
     
+    /**
+     * 在標題和描述中全文搜索，按相關度返回一頁結果。
+     */
+    public List<Assignment> search(String text, int offset, int limit) {
+        List<Long> ids = assignmentSearchIndex.search(text, offset, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Assignment> byId = assignmentRepository.findWithTeacherByIdIn(ids).stream()
+                .collect(Collectors.toMap(Assignment::getId, Function.identity()));
+        // 保持索引返回的相關度順序
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+    
+    public int countSearch(String text) {
+        return assignmentSearchIndex.count(text);
+    }
+    
     public List<Assignment> findByDueDateBefore(LocalDateTime dateTime) {
         return assignmentRepository.findByDueDateBefore(dateTime);
     }
@@ -75,14 +109,14 @@ public class AssignmentService {
     }
     
     public long countByTeacher(User teacher) {
-        return assignmentRepository.findByTeacher(teacher).size();
+        return assignmentRepository.countByTeacher(teacher);
     }
     
     public long countOverdue() {
-        return assignmentRepository.findOverdueAssignments(LocalDateTime.now()).size();
+        return assignmentRepository.countOverdue(LocalDateTime.now());
     }
     
     public long countUpcoming() {
-        return assignmentRepository.findUpcomingAssignments(LocalDateTime.now()).size();
+        return assignmentRepository.countUpcoming(LocalDateTime.now());
     }
 }
\ No newline at end of file
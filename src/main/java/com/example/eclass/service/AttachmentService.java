@@ -0,0 +1,232 @@
+package com.example.eclass.service;
+
+import com.example.eclass.entity.Assignment;
+import com.example.eclass.entity.Attachment;
+import com.example.eclass.entity.Submission;
+import com.example.eclass.entity.User;
+import com.example.eclass.repository.AttachmentRepository;
+import com.example.eclass.repository.SubmissionRepository;
+import com.example.eclass.storage.AttachmentStore;
+import com.example.eclass.storage.AttachmentStore.PendingBlob;
+import com.example.eclass.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 提交附件的上傳、配額檢查、下載和清理。
+ * 文件放入存儲時登記其摘要，直到寫入附件記錄的事務結束才取消；刪除無引用文件時跳過已登記的摘要，
+ * 保證一個文件不會在新記錄提交之前被當作無引用文件刪除。鎖只保護存儲操作和登記表，不包含事務。
+ */
+@Service
+public class AttachmentService {
+    
+    private static final long MB = 1024 * 1024;
+    
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+    
+    @Autowired
+    private SubmissionRepository submissionRepository;
+    
+    @Autowired
+    private SubmissionService submissionService;
+    
+    @Autowired
+    private AttachmentStore attachmentStore;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${eclass.attachments.default-quota-mb:20}")
+    private long defaultQuotaMb;
+    
+    private final Object storeLock = new Object();
+    
+    /** 已放入存儲、附件記錄的事務還沒結束的摘要及其次數，由 storeLock 保護 */
+    private final Map<String, Integer> pendingReferences = new HashMap<>();
+    
+    public long getQuotaBytes(Assignment assignment) {
+        return assignment.getAttachmentQuotaBytes() != null ? assignment.getAttachmentQuotaBytes() : defaultQuotaMb * MB;
+    }
+    
+    /**
+     * 學生在該作業下還可以上傳的字節數。
+     */
+    @Transactional(readOnly = true)
+    public long getRemainingQuota(Assignment assignment, User student) {
+        long used = attachmentRepository.sumSizeByAssignmentAndStudent(assignment, student);
+        return Math.max(0, getQuotaBytes(assignment) - used);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Attachment> findBySubmission(Long submissionId) {
+        return attachmentRepository.findBySubmissionId(submissionId);
+    }
+    
+    /**
+     * 開始接收一個上傳文件，內容流式寫入存儲的臨時目錄。
+     */
+    public PendingBlob beginUpload(String fileName, String contentType, long maxBytes) {
+        try {
+            return attachmentStore.begin(sanitizeFileName(fileName), contentType, maxBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法創建上傳文件", e);
+        }
+    }
+    
+    public void discard(List<PendingBlob> blobs) {
+        blobs.forEach(attachmentStore::discard);
+    }
+    
+    /**
+     * 把已上傳完成的文件加到提交上。再次檢查配額，超出時整批拒絕並丟棄臨時文件。
+     * 提交記錄加行鎖後才統計已用大小，同一提交的並發上傳依次檢查，合計不會超過配額。
+     */
+    public List<Attachment> attach(Long submissionId, User student, List<PendingBlob> blobs) {
+        if (blobs.isEmpty()) {
+            return List.of();
+        }
+        return inStoreTransaction(blobs, committed -> addAttachments(submissionId, student, blobs, committed));
+    }
+    
+    /**
+     * 保存提交內容並加上附件，兩者在同一事務中：配額超出或保存附件失敗時提交內容也不保存。
+     * 無論成功與否臨時文件都會丟棄，失敗後需要重新上傳。
+     */
+    public Submission submitWithAttachments(Assignment assignment, User student, String content,
+                                            List<PendingBlob> blobs) {
+        return inStoreTransaction(blobs, committed -> {
+            Submission submission = submissionService.updateSubmission(assignment, student, content);
+            if (!blobs.isEmpty()) {
+                addAttachments(submission.getId(), student, blobs, committed);
+            }
+            return submission;
+        });
+    }
+    
+    /**
+     * 在一個事務中執行 work；事務結束後取消 work 放入存儲時登記的摘要，
+     * 回滾時刪除剛放入且沒有其他引用的文件，最後丟棄臨時文件。
+     */
+    private <T> T inStoreTransaction(List<PendingBlob> blobs, Function<List<String>, T> work) {
+        List<String> committed = new ArrayList<>();
+        boolean success = false;
+        try {
+            T result = transactionTemplate.execute(status -> work.apply(committed));
+            success = true;
+            return result;
+        } finally {
+            synchronized (storeLock) {
+                for (String sha256 : committed) {
+                    pendingReferences.computeIfPresent(sha256, (key, count) -> count > 1 ? count - 1 : null);
+                }
+            }
+            if (!success) {
+                // 事務回滾後，剛放入存儲且沒有其他引用的文件一併刪除
+                committed.forEach(this::deleteIfUnreferenced);
+            }
+            discard(blobs);
+        }
+    }
+    
+    /** 需要在事務中調用；放入存儲的文件摘要記到 committed 中 */
+    private List<Attachment> addAttachments(Long submissionId, User student, List<PendingBlob> blobs,
+                                            List<String> committed) {
+        Submission submission = submissionRepository.findWithDetailsByIdForUpdate(submissionId)
+            .orElseThrow(() -> new RuntimeException("找不到指定的提交記錄"));
+        if (!Objects.equals(submission.getStudent().getId(), student.getId())) {
+            throw new RuntimeException("只能給自己的提交添加附件");
+        }
+        long quota = getQuotaBytes(submission.getAssignment());
+        long total = attachmentRepository.sumSizeBySubmissionId(submissionId);
+        for (PendingBlob blob : blobs) {
+            total += blob.getSize();
+        }
+        if (total > quota) {
+            throw new RuntimeException("附件總大小超過此作業的配額 (" + quota / MB + " MB)");
+        }
+        
+        List<Attachment> saved = new ArrayList<>();
+        for (PendingBlob blob : blobs) {
+            String sha256 = commit(blob);
+            committed.add(sha256);
+            saved.add(attachmentRepository.save(new Attachment(
+                submission, blob.getFileName(), blob.getContentType(), blob.getSize(), sha256)));
+        }
+        return saved;
+    }
+    
+    /**
+     * 學生刪除自己提交中的一個附件。
+     */
+    @Transactional
+    public void delete(Long attachmentId, User student) {
+        Attachment attachment = attachmentRepository.findById(attachmentId)
+            .orElseThrow(() -> new RuntimeException("找不到指定的附件"));
+        if (!Objects.equals(attachment.getSubmission().getStudent().getId(), student.getId())) {
+            throw new RuntimeException("只能刪除自己的附件");
+        }
+        attachment.getSubmission().getAttachments().remove(attachment);
+        attachmentRepository.delete(attachment);
+    }
+    
+    /**
+     * 把附件內容寫到輸出流，供下載使用。
+     */
+    public long download(Attachment attachment, OutputStream out) throws IOException {
+        return attachmentStore.copyTo(attachment.getSha256(), out);
+    }
+    
+    /**
+     * 附件記錄刪除後調用，事務提交後如果該內容已沒有任何引用則刪除文件。
+     */
+    public void releaseAfterCommit(String sha256) {
+        TransactionHooks.afterCommit(() -> deleteIfUnreferenced(sha256));
+    }
+    
+    private void deleteIfUnreferenced(String sha256) {
+        synchronized (storeLock) {
+            if (!pendingReferences.containsKey(sha256) && !attachmentRepository.existsBySha256(sha256)) {
+                attachmentStore.delete(sha256);
+            }
+        }
+    }
+    
+    /** 放入存儲並登記摘要；與刪除檢查互斥，避免剛放入的文件被其他事務的清理刪掉 */
+    private String commit(PendingBlob blob) {
+        try {
+            synchronized (storeLock) {
+                String sha256 = attachmentStore.commit(blob);
+                pendingReferences.merge(sha256, 1, Integer::sum);
+                return sha256;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存附件失敗", e);
+        }
+    }
+    
+    private static String sanitizeFileName(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            return "attachment";
+        }
+        // 瀏覽器可能帶上客戶端路徑，只保留文件名部分
+        String result = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1).trim();
+        if (result.isEmpty()) {
+            return "attachment";
+        }
+        return result.length() > 255 ? result.substring(result.length() - 255) : result;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.eclass.service;
+
+import com.example.eclass.dto.CacheRegionStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 讀取 Hibernate 統計中的二級緩存命中數據。
+ * 需要開啟 hibernate.generate_statistics。
+ */
+@Service
+public class CacheStatisticsService {
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    public List<CacheRegionStats> getRegionStats() {
+        Statistics statistics = getStatistics();
+        List<CacheRegionStats> result = new ArrayList<>();
+        String[] regions = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regions);
+        for (String region : regions) {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            result.add(new CacheRegionStats(
+                region,
+                regionStatistics.getHitCount(),
+                regionStatistics.getMissCount(),
+                regionStatistics.getPutCount()
+            ));
+        }
+        return result;
+    }
+    
+    public CacheRegionStats getTotalStats() {
+        Statistics statistics = getStatistics();
+        return new CacheRegionStats(
+            "total",
+            statistics.getSecondLevelCacheHitCount() + statistics.getNaturalIdCacheHitCount(),
+            statistics.getSecondLevelCacheMissCount() + statistics.getNaturalIdCacheMissCount(),
+            statistics.getSecondLevelCachePutCount() + statistics.getNaturalIdCachePutCount()
+        );
+    }
+    
+    public boolean isEnabled() {
+        return getStatistics().isStatisticsEnabled();
+    }
+    
+    private Statistics getStatistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
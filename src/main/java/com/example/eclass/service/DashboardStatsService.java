@@ -0,0 +1,121 @@
+package com.example.eclass.service;
+
+import com.example.eclass.dto.AdminStats;
+import com.example.eclass.dto.StudentStats;
+import com.example.eclass.dto.TeacherStats;
+import com.example.eclass.entity.User;
+import com.example.eclass.repository.AssignmentRepository;
+import com.example.eclass.repository.SubmissionRepository;
+import com.example.eclass.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 儀表板統計卡片的數據來源。
+ * 每個儀表板的所有統計值由一條聚合查詢得到，結果按時間桶緩存並在所有會話間共享，
+ * 同一時間桶內的重複請求不會再訪問數據庫。學生儀表板中與學生無關的作業總數單獨緩存，
+ * 所有學生共用，每個學生只查詢自己的提交數。
+ * 這個類不聲明事務：查詢各自在倉庫方法的只讀事務中執行，命中緩存和等待其他請求加載時不佔用數據庫連接。
+ */
+@Service
+public class DashboardStatsService {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+    
+    @Autowired
+    private SubmissionRepository submissionRepository;
+    
+    @Value("${eclass.dashboard.stats-cache-seconds:30}")
+    private long cacheSeconds;
+    
+    private final Map<String, Bucketed> cache = new ConcurrentHashMap<>();
+    
+    private volatile long lastPrunedBucket;
+    
+    public AdminStats getAdminStats() {
+        return cached("admin", userRepository::computeAdminStats);
+    }
+    
+    public TeacherStats getTeacherStats(User teacher) {
+        return cached("teacher:" + teacher.getId(), () -> assignmentRepository.computeTeacherStats(teacher));
+    }
+    
+    public StudentStats getStudentStats(User student) {
+        long totalAssignments = cached("student-totals", assignmentRepository::count);
+        long submitted = cached("student:" + student.getId(), () -> submissionRepository.countByStudent(student));
+        return new StudentStats(totalAssignments, submitted);
+    }
+    
+    public void evictAll() {
+        cache.clear();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String key, Supplier<T> loader) {
+        long bucket = currentBucket();
+        Bucketed entry = cache.get(key);
+        if (entry == null || entry.bucket != bucket) {
+            pruneExpired(bucket);
+            // compute 只放入一個未完成的 future，不在映射的鎖內查詢；放入成功的請求執行查詢，
+            // 同一時間桶內的其他請求等待同一個 future
+            Bucketed created = new Bucketed(bucket);
+            entry = cache.compute(key, (k, old) -> old != null && old.bucket == bucket ? old : created);
+            if (entry == created) {
+                load(key, created, loader);
+            }
+        }
+        try {
+            return (T) entry.value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+    
+    /**
+     * 查詢失敗時移除條目，下一個請求重新查詢。包括 Error 在內的任何異常都要完成 future，
+     * 否則等待同一時間桶的請求會一直阻塞在 join() 上。
+     */
+    private void load(String key, Bucketed entry, Supplier<?> loader) {
+        try {
+            entry.value.complete(loader.get());
+        } catch (Throwable e) {
+            cache.remove(key, entry);
+            entry.value.completeExceptionally(e);
+        }
+    }
+    
+    private long currentBucket() {
+        long bucketMillis = Math.max(1, cacheSeconds) * 1000;
+        return System.currentTimeMillis() / bucketMillis;
+    }
+    
+    private void pruneExpired(long bucket) {
+        if (lastPrunedBucket != bucket) {
+            lastPrunedBucket = bucket;
+            cache.values().removeIf(entry -> entry.bucket < bucket);
+        }
+    }
+    
+    private static final class Bucketed {
+        private final long bucket;
+        private final CompletableFuture<Object> value = new CompletableFuture<>();
+        
+        private Bucketed(long bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.eclass.service;
+
+import com.example.eclass.dto.GradeExportRow;
+import com.example.eclass.entity.Assignment;
+import com.example.eclass.entity.User;
+import com.example.eclass.repository.SubmissionRepository;
+import com.example.eclass.util.CsvWriter;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 成績導出 (CSV / XLSX)。
+ * 數據通過游標查詢逐行讀出並立即寫到輸出流，內存佔用與導出行數無關：
+ * CSV 直接寫出；XLSX 使用 POI 的 SXSSF，內存中只保留最近的若干行，其餘寫入壓縮的臨時文件。
+ * CSV 的列名與 {@link GradeImportService} 一致，修改分數後可以直接導回。
+ */
+@Service
+@Transactional(readOnly = true)
+public class GradeExportService {
+    
+    private static final List<String> HEADER = Arrays.asList(
+        "submissionId", "assignmentId", "assignmentTitle", "username", "studentName",
+        "submittedDate", "late", "grade", "feedback"
+    );
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
+    /** SXSSF 在內存中保留的行數 */
+    private static final int XLSX_WINDOW_SIZE = 100;
+    
+    @Autowired
+    private SubmissionRepository submissionRepository;
+    
+    /**
+     * @param assignment 為 null 時導出該老師所有作業的成績
+     */
+    public long writeCsv(User teacher, Assignment assignment, OutputStream out) throws IOException {
+        long count = 0;
+        CsvWriter writer = new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        // BOM 讓 Excel 以 UTF-8 打開中文
+        out.write(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        writer.writeRecord(HEADER);
+        try (Stream<GradeExportRow> rows = rows(teacher, assignment)) {
+            Iterator<GradeExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                GradeExportRow row = iterator.next();
+                writer.writeRecord(Arrays.asList(
+                    row.getSubmissionId(), row.getAssignmentId(), row.getAssignmentTitle(), row.getUsername(),
+                    row.getStudentName(), row.getSubmittedDate().format(DATE_FORMAT), row.isLate() ? "是" : "否",
+                    row.getGrade(), row.getFeedback()
+                ));
+                count++;
+            }
+        }
+        writer.flush();
+        return count;
+    }
+    
+    public long writeXlsx(User teacher, Assignment assignment, OutputStream out) throws IOException {
+        long count = 0;
+        SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_WINDOW_SIZE);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("成績");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+            
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < HEADER.size(); i++) {
+                header.createCell(i).setCellValue(HEADER.get(i));
+            }
+            
+            try (Stream<GradeExportRow> rows = rows(teacher, assignment)) {
+                Iterator<GradeExportRow> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    GradeExportRow row = iterator.next();
+                    Row sheetRow = sheet.createRow((int) ++count);
+                    sheetRow.createCell(0).setCellValue(row.getSubmissionId());
+                    sheetRow.createCell(1).setCellValue(row.getAssignmentId());
+                    sheetRow.createCell(2).setCellValue(truncate(row.getAssignmentTitle()));
+                    sheetRow.createCell(3).setCellValue(row.getUsername());
+                    sheetRow.createCell(4).setCellValue(row.getStudentName());
+                    Cell submitted = sheetRow.createCell(5);
+                    submitted.setCellValue(row.getSubmittedDate());
+                    submitted.setCellStyle(dateStyle);
+                    sheetRow.createCell(6).setCellValue(row.isLate() ? "是" : "否");
+                    if (row.getGrade() != null) {
+                        sheetRow.createCell(7).setCellValue(row.getGrade());
+                    }
+                    if (row.getFeedback() != null) {
+                        sheetRow.createCell(8).setCellValue(truncate(row.getFeedback()));
+                    }
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        return count;
+    }
+    
+    /** XLSX 單元格最多 32767 個字符 */
+    private static String truncate(String value) {
+        int max = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+        return value.length() > max ? value.substring(0, max) : value;
+    }
+    
+    private Stream<GradeExportRow> rows(User teacher, Assignment assignment) {
+        return assignment != null
+            ? submissionRepository.streamGradesByAssignment(teacher, assignment)
+            : submissionRepository.streamGradesByTeacher(teacher);
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.eclass.service;
+
+import com.example.eclass.dto.GradeUpdate;
+import com.example.eclass.dto.ImportError;
+import com.example.eclass.dto.ImportResult;
+import com.example.eclass.entity.Assignment;
+import com.example.eclass.entity.User;
+import com.example.eclass.util.CsvReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 從 CSV 導入一個作業的成績。
+ * 表頭必須包含 grade 以及 submissionId 或 username 其中之一，feedback 列可選；
+ * grade 為空的行跳過；沒有 feedback 列或 feedback 為空時保留原有評語。
+ * 文件逐行讀取，每 batch-size 行通過 {@link SubmissionService#gradeSubmissions} 批量更新，
+ * 整個文件在同一個事務中生效。
+ */
+@Service
+public class GradeImportService {
+    
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    
+    @Autowired
+    private SubmissionService submissionService;
+    
+    @Value("${eclass.import.batch-size:500}")
+    private int batchSize;
+    
+    @Transactional
+    public ImportResult importGrades(User teacher, Assignment assignment, InputStream input) throws IOException {
+        long start = System.currentTimeMillis();
+        if (!Objects.equals(assignment.getTeacher().getId(), teacher.getId())) {
+            throw new RuntimeException("只能導入自己作業的成績");
+        }
+        
+        CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<String> header = reader.next();
+        if (header == null) {
+            return new ImportResult(0, 0, 0, List.of(), 0);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        Integer idColumn = columns.get("submissionid");
+        Integer usernameColumn = columns.get("username");
+        Integer gradeColumn = columns.get("grade");
+        Integer feedbackColumn = columns.get("feedback");
+        if (gradeColumn == null || (idColumn == null && usernameColumn == null)) {
+            throw new RuntimeException("CSV 必須包含 grade 列以及 submissionId 或 username 列");
+        }
+        
+        // 一個作業的提交數量以班級人數為上限，一次查詢全部載入
+        Map<String, Long> idsByUsername = submissionService.findSubmissionIdsByUsername(assignment);
+        Set<Long> assignmentSubmissionIds = new HashSet<>(idsByUsername.values());
+        Set<Long> seen = new HashSet<>();
+        
+        List<ImportError> errors = new ArrayList<>();
+        List<GradeUpdate> chunk = new ArrayList<>();
+        Map<Long, Long> lineNumbers = new HashMap<>();
+        long processed = 0;
+        long imported = 0;
+        long failed = 0;
+        
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            processed++;
+            long lineNumber = reader.getRecordLineNumber();
+            String key = usernameColumn != null ? field(record, usernameColumn) : field(record, idColumn);
+            
+            String gradeValue = field(record, gradeColumn);
+            if (gradeValue.isEmpty()) {
+                continue;
+            }
+            String error = null;
+            Long submissionId = null;
+            Integer grade = null;
+            try {
+                grade = Integer.parseInt(gradeValue);
+                if (grade < 0 || grade > 100) {
+                    error = "分數必須在0-100之間";
+                }
+            } catch (NumberFormatException e) {
+                error = "無效的分數: " + gradeValue;
+            }
+            
+            if (error == null) {
+                if (idColumn != null && !field(record, idColumn).isEmpty()) {
+                    try {
+                        submissionId = Long.parseLong(field(record, idColumn));
+                    } catch (NumberFormatException e) {
+                        error = "無效的提交 ID: " + field(record, idColumn);
+                    }
+                    if (submissionId != null && !assignmentSubmissionIds.contains(submissionId)) {
+                        error = "該作業沒有這條提交記錄: " + submissionId;
+                    }
+                } else if (usernameColumn != null) {
+                    submissionId = idsByUsername.get(key);
+                    if (submissionId == null) {
+                        error = "該學生沒有提交這個作業: " + key;
+                    }
+                } else {
+                    error = "缺少提交 ID";
+                }
+            }
+            if (error == null && !seen.add(submissionId)) {
+                error = "文件中重複的提交記錄";
+            }
+            
+            if (error != null) {
+                failed++;
+                addError(errors, lineNumber, key, error);
+                continue;
+            }
+            
+            String feedback = feedbackColumn != null ? field(record, feedbackColumn) : null;
+            chunk.add(new GradeUpdate(submissionId, grade, feedback));
+            lineNumbers.put(submissionId, lineNumber);
+            if (chunk.size() >= batchSize) {
+                int notUpdated = apply(teacher, chunk, lineNumbers, errors);
+                imported += chunk.size() - notUpdated;
+                failed += notUpdated;
+                chunk.clear();
+                lineNumbers.clear();
+            }
+        }
+        int notUpdated = apply(teacher, chunk, lineNumbers, errors);
+        imported += chunk.size() - notUpdated;
+        failed += notUpdated;
+        
+        errors.sort(Comparator.comparingLong(ImportError::getLineNumber));
+        return new ImportResult(processed, imported, failed, errors, System.currentTimeMillis() - start);
+    }
+    
+    /**
+     * 批量更新一批成績，返回沒有更新的行數 (提交記錄在讀取文件期間被刪除)。
+     */
+    private int apply(User teacher, List<GradeUpdate> chunk, Map<Long, Long> lineNumbers, List<ImportError> errors) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        List<Long> notUpdated = submissionService.gradeSubmissions(teacher, chunk);
+        for (Long submissionId : notUpdated) {
+            addError(errors, lineNumbers.get(submissionId), String.valueOf(submissionId), "找不到指定的提交記錄");
+        }
+        return notUpdated.size();
+    }
+    
+    private static void addError(List<ImportError> errors, long lineNumber, String key, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new ImportError(lineNumber, key, message));
+        }
+    }
+    
+    private static String field(List<String> record, Integer index) {
+        if (index == null || index >= record.size()) {
+            return "";
+        }
+        return record.get(index).trim();
+    }
+}
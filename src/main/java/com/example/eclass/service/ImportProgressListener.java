@@ -0,0 +1,12 @@
+package com.example.eclass.service;
+
+/**
+ * 批量導入的進度回調，每處理完一批數據調用一次。
+ */
+@FunctionalInterface
+public interface ImportProgressListener {
+    
+    ImportProgressListener NONE = (processed, imported, failed) -> { };
+    
+    void onProgress(long processed, long imported, long failed);
+}
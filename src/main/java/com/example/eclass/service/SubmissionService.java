@@ -1,24 +1,54 @@
 package com.example.eclass.service;
 
+import com.example.eclass.dto.GradeUpdate;
+import com.example.eclass.dto.SubmissionBody;
+import com.example.eclass.dto.SubmissionCounts;
+import com.example.eclass.dto.SubmissionStudentRef;
+import com.example.eclass.dto.SubmissionSummary;
 import com.example.eclass.entity.Assignment;
 import com.example.eclass.entity.Submission;
 import com.example.eclass.entity.User;
+import com.example.eclass.metrics.DomainMetrics;
 import com.example.eclass.repository.SubmissionRepository;
+import com.example.eclass.util.LongIdSet;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
-@Transactional
+@Transactional(readOnly = true)
 public class SubmissionService {
     
+    /** 只更新評分相關的兩列，並限定為該老師作業下的提交記錄 */
+    private static final String GRADE_SQL =
+        "UPDATE submissions SET grade = ?, feedback = COALESCE(?, feedback) " +
+        "WHERE id = ? AND assignment_id IN (SELECT id FROM assignments WHERE teacher_id = ?)";
+    
     @Autowired
     private SubmissionRepository submissionRepository;
     
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private DomainMetrics domainMetrics;
+    
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+    
     public List<Submission> findAll() {
         return submissionRepository.findAll();
     }
@@ -43,10 +73,44 @@ public class SubmissionService {
         return submissionRepository.findByTeacher(teacher);
     }
     
+    public List<SubmissionSummary> findSummariesByTeacher(User teacher) {
+        return submissionRepository.findSummariesByTeacher(teacher);
+    }
+    
+    /**
+     * 按提交時間倒序讀取 after 之後的一頁，供 Grid 無限滾動使用。
+     */
+    public List<SubmissionSummary> findSummaryPageByStudent(User student, SubmissionSummary after, int limit) {
+        return submissionRepository.findSummaryPageByStudent(student, after, limit);
+    }
+    
+    public List<SubmissionSummary> findSummaryPageByAssignment(Assignment assignment, SubmissionSummary after, int limit) {
+        return submissionRepository.findSummaryPageByAssignment(assignment, after, limit);
+    }
+    
+    public Optional<SubmissionSummary> findSummaryByAssignmentAndStudent(Assignment assignment, User student) {
+        return submissionRepository.findSummaryByAssignmentAndStudent(assignment, student);
+    }
+    
+    /**
+     * 單獨讀取提交內容和評語正文，只在對話框實際顯示時調用。
+     */
+    public Optional<SubmissionBody> findBody(Long submissionId) {
+        return submissionRepository.findBodyById(submissionId);
+    }
+    
+    /**
+     * 載入提交記錄及其作業和學生，供評分對話框使用。
+     */
+    public Optional<Submission> findWithDetailsById(Long id) {
+        return submissionRepository.findWithDetailsById(id);
+    }
+    
     public List<Submission> findUngradedByTeacher(User teacher) {
         return submissionRepository.findUngraded(teacher);
     }
     
+    @Transactional
     public Submission save(Submission submission) {
         if (submission.getSubmittedDate() == null) {
             submission.setSubmittedDate(LocalDateTime.now());
@@ -54,44 +118,110 @@ public class SubmissionService {
         return submissionRepository.save(submission);
     }
     
+    @Transactional
     public Submission submitAssignment(Assignment assignment, User student, String content) {
-        // 檢查是否已經提交過
-        Optional<Submission> existingSubmission = findByAssignmentAndStudent(assignment, student);
-        if (existingSubmission.isPresent()) {
-            throw new RuntimeException("您已經提交過這個作業了");
-        }
-        
+        // 由 (assignment_id, student_id) 唯一約束保證不會重複提交，不再先查後插
         Submission submission = new Submission(content, assignment, student);
-        return save(submission);
+        try {
+            Submission saved = submissionRepository.saveAndFlush(submission);
+            domainMetrics.submissionRecorded(false);
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            if (violates(e, Submission.ASSIGNMENT_STUDENT_CONSTRAINT)) {
+                throw new RuntimeException("您已經提交過這個作業了", e);
+            }
+            throw e;
+        }
+    }
+    
+    /** 異常是否由指定名稱的約束引起；H2 報告的名稱帶有表名和列，按包含比較 */
+    private static boolean violates(DataIntegrityViolationException e, String constraintName) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String violated = violation.getConstraintName();
+                return violated != null && violated.toLowerCase(Locale.ROOT).contains(constraintName);
+            }
+        }
+        return false;
     }
     
+    @Transactional
     public Submission updateSubmission(Assignment assignment, User student, String content) {
         Optional<Submission> existingSubmission = findByAssignmentAndStudent(assignment, student);
         if (existingSubmission.isPresent()) {
             Submission submission = existingSubmission.get();
             submission.setContent(content);
             submission.setSubmittedDate(LocalDateTime.now());
+            domainMetrics.submissionRecorded(true);
             return save(submission);
         } else {
             return submitAssignment(assignment, student, content);
         }
     }
     
+    @Transactional
     public Submission gradeSubmission(Long submissionId, Integer grade, String feedback) {
         Optional<Submission> submissionOpt = findById(submissionId);
         if (submissionOpt.isPresent()) {
             Submission submission = submissionOpt.get();
             submission.setGrade(grade);
             submission.setFeedback(feedback);
+            domainMetrics.gradesRecorded(1);
             return save(submission);
         }
         throw new RuntimeException("找不到指定的提交記錄");
     }
     
+    /**
+     * 在一個事務中批量評分，UPDATE 按 JDBC 批處理發送。
+     * 返回沒有更新的提交 ID (不存在或不屬於該老師的作業)。
+     */
+    @Transactional
+    public List<Long> gradeSubmissions(User teacher, List<GradeUpdate> updates) {
+        for (GradeUpdate update : updates) {
+            if (update.getGrade() != null && (update.getGrade() < 0 || update.getGrade() > 100)) {
+                throw new RuntimeException("分數必須在0-100之間");
+            }
+        }
+        
+        int[][] counts = jdbcTemplate.batchUpdate(GRADE_SQL, updates, batchSize, (ps, update) -> {
+            ps.setObject(1, update.getGrade());
+            ps.setString(2, update.getFeedback());
+            ps.setLong(3, update.getSubmissionId());
+            ps.setLong(4, teacher.getId());
+        });
+        
+        List<Long> notUpdated = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) {
+                    notUpdated.add(updates.get(index).getSubmissionId());
+                }
+                index++;
+            }
+        }
+        domainMetrics.gradesRecorded(updates.size() - notUpdated.size());
+        return notUpdated;
+    }
+    
+    /**
+     * 作業下所有提交的學生用戶名到提交 ID 的映射。
+     */
+    public Map<String, Long> findSubmissionIdsByUsername(Assignment assignment) {
+        Map<String, Long> ids = new HashMap<>();
+        for (SubmissionStudentRef ref : submissionRepository.findStudentRefsByAssignment(assignment)) {
+            ids.put(ref.getUsername(), ref.getSubmissionId());
+        }
+        return ids;
+    }
+    
+    @Transactional
     public void delete(Submission submission) {
         submissionRepository.delete(submission);
     }
     
+    @Transactional
     public void deleteById(Long id) {
         submissionRepository.deleteById(id);
     }
@@ -100,15 +230,36 @@ public class SubmissionService {
         return submissionRepository.existsByAssignmentAndStudent(assignment, student);
     }
     
+    /**
+     * 學生已提交的所有作業 ID，一次查詢取得，用於在列表中逐行判斷提交狀態。
+     */
+    public LongIdSet findSubmittedAssignmentIds(User student) {
+        return LongIdSet.of(submissionRepository.findSubmittedAssignmentIds(student));
+    }
+    
     public long countByAssignment(Assignment assignment) {
         return submissionRepository.countByAssignment(assignment);
     }
     
+    /**
+     * 一次分組查詢返回多個作業的提交統計，以作業 ID 為鍵。沒有提交的作業不在結果中。
+     */
+    public Map<Long, SubmissionCounts> countByAssignments(Collection<Assignment> assignments) {
+        Map<Long, SubmissionCounts> counts = new HashMap<>();
+        if (assignments.isEmpty()) {
+            return counts;
+        }
+        for (SubmissionCounts row : submissionRepository.countGroupedByAssignment(assignments)) {
+            counts.put(row.getAssignmentId(), row);
+        }
+        return counts;
+    }
+    
     public long countByStudent(User student) {
-        return submissionRepository.findByStudent(student).size();
+        return submissionRepository.countByStudent(student);
     }
     
     public long countUngradedByTeacher(User teacher) {
-        return submissionRepository.findUngraded(teacher).size();
+        return submissionRepository.countUngraded(teacher);
     }
 }
\ No newline at end of file
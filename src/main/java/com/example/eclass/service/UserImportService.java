@@ -0,0 +1,477 @@
+package com.example.eclass.service;
+
+import com.example.eclass.dto.ImportError;
+import com.example.eclass.dto.ImportResult;
+import com.example.eclass.dto.UserImportRow;
+import com.example.eclass.entity.Role;
+import com.example.eclass.entity.User;
+import com.example.eclass.util.BloomFilter;
+import com.example.eclass.util.CsvReader;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * 從 CSV 或 JSON 文件流式批量導入用戶。
+ * <ul>
+ *   <li>文件逐條讀取，每 batch-size 行作為一批處理，內存佔用與文件大小無關；</li>
+ *   <li>開始前用一次查詢把現有用戶名和郵箱載入布隆過濾器，只有可能重複的行才用一條 IN 查詢確認；</li>
+ *   <li>密碼哈希在導入自己的線程池上並行執行 (不經過登錄使用的有界哈希隊列)，插入使用 JDBC 批處理，每批一個事務；</li>
+ *   <li>批量插入遇到約束衝突 (如並發插入的相同用戶名) 時，退回到逐行插入以定位出錯的行。</li>
+ * </ul>
+ * CSV 第一行必須是表頭，列名為 username, password, fullName, email, role（不區分大小寫）。
+ * JSON 文件是由同名字段組成的對象數組。
+ */
+@Service
+public class UserImportService {
+    
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+    
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String INSERT_SQL =
+        "INSERT INTO users (id, username, password, full_name, email, role, enabled) VALUES (?, ?, ?, ?, ?, ?, TRUE)";
+    private static final String NEXT_ID_SQL = "SELECT NEXT VALUE FOR " + User.ID_SEQUENCE;
+    /** 與 SecurityConfig 中 DelegatingPasswordEncoder 的默認編碼 ID 一致 */
+    private static final String BCRYPT_PREFIX = "{bcrypt}";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+    
+    @Value("${eclass.import.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${eclass.import.hash-parallelism:0}")
+    private int hashParallelism;
+    
+    @Value("${eclass.security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
+    /** 同一時間只運行一個導入任務，後來的任務排隊 */
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+    }
+    
+    /**
+     * 在後台線程中導入，完成後關閉輸入流。
+     */
+    public CompletableFuture<ImportResult> importUsersAsync(InputStream input, String fileName,
+                                                            ImportProgressListener listener) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (input) {
+                return importUsers(input, fileName, listener);
+            } catch (IOException e) {
+                throw new UncheckedIOException("讀取導入文件失敗", e);
+            }
+        }, importExecutor);
+    }
+    
+    public ImportResult importUsers(InputStream input, String fileName, ImportProgressListener listener) throws IOException {
+        long start = System.currentTimeMillis();
+        int parallelism = hashParallelism > 0 ? hashParallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ExecutorService hashPool = Executors.newFixedThreadPool(parallelism);
+        ImportState state = new ImportState(buildExistingUserFilter(), listener, hashPool,
+            new BCryptPasswordEncoder(bcryptStrength));
+        
+        try {
+            if (fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".json")) {
+                readJson(input, state);
+            } else {
+                readCsv(input, state);
+            }
+            state.flush();
+        } finally {
+            hashPool.shutdownNow();
+            dashboardStatsService.evictAll();
+        }
+        
+        state.errors.sort(Comparator.comparingLong(ImportError::getLineNumber));
+        ImportResult result = new ImportResult(state.processed, state.imported, state.failed, state.errors,
+            System.currentTimeMillis() - start);
+        log.info("用戶批量導入完成: {}", result);
+        return result;
+    }
+    
+    private void readCsv(InputStream input, ImportState state) throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<String> header = reader.next();
+        if (header == null) {
+            return;
+        }
+        
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("username", "password", "fullname", "role")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV 缺少列: " + required);
+            }
+        }
+        
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            UserImportRow row = new UserImportRow(
+                field(record, columns.get("username")),
+                field(record, columns.get("password")),
+                field(record, columns.get("fullname")),
+                field(record, columns.get("email")),
+                field(record, columns.get("role"))
+            );
+            state.add(reader.getRecordLineNumber(), row);
+        }
+    }
+    
+    private void readJson(InputStream input, ImportState state) throws IOException {
+        try (MappingIterator<UserImportRow> rows = objectMapper.readerFor(UserImportRow.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValues(input)) {
+            long index = 0;
+            while (rows.hasNextValue()) {
+                state.add(++index, rows.nextValue());
+            }
+        }
+    }
+    
+    private static String field(List<String> record, Integer index) {
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        return record.get(index);
+    }
+    
+    /**
+     * 一次查詢把現有用戶名和郵箱放入布隆過濾器。
+     */
+    private BloomFilter buildExistingUserFilter() {
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        long expected = Math.max(100_000, (existing != null ? existing : 0) * 2);
+        BloomFilter filter = new BloomFilter(expected, 0.01);
+        jdbcTemplate.query("SELECT username, email FROM users", rs -> {
+            filter.put(usernameKey(rs.getString(1)));
+            String email = rs.getString(2);
+            if (email != null) {
+                filter.put(emailKey(email));
+            }
+        });
+        return filter;
+    }
+    
+    private static String usernameKey(String username) {
+        return "u:" + username;
+    }
+    
+    private static String emailKey(String email) {
+        return "e:" + email;
+    }
+    
+    private static Role parseRole(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        for (Role role : Role.values()) {
+            if (role.name().equalsIgnoreCase(trimmed) || role.getDisplayName().equals(trimmed)) {
+                return role;
+            }
+        }
+        return null;
+    }
+    
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+    
+    private static final class PendingUser {
+        private final long lineNumber;
+        private final User user;
+        private String encodedPassword;
+        private long id;
+        
+        private PendingUser(long lineNumber, User user) {
+            this.lineNumber = lineNumber;
+            this.user = user;
+        }
+        
+        private Object[] toInsertArgs() {
+            return new Object[] {
+                id, user.getUsername(), encodedPassword, user.getFullName(), user.getEmail(), user.getRole().name()
+            };
+        }
+    }
+    
+    /**
+     * 一次導入過程中的狀態：當前批次、計數器和錯誤列表。
+     */
+    private final class ImportState {
+        private final BloomFilter existing;
+        private final ImportProgressListener listener;
+        private final ExecutorService hashPool;
+        private final BCryptPasswordEncoder passwordEncoder;
+        private final List<Map.Entry<Long, UserImportRow>> chunk = new ArrayList<>();
+        private final List<ImportError> errors = new ArrayList<>();
+        private long processed;
+        private long imported;
+        private long failed;
+        private long nextId;
+        private long maxId = -1;
+        
+        private ImportState(BloomFilter existing, ImportProgressListener listener, ExecutorService hashPool,
+                            BCryptPasswordEncoder passwordEncoder) {
+            this.existing = existing;
+            this.listener = listener != null ? listener : ImportProgressListener.NONE;
+            this.hashPool = hashPool;
+            this.passwordEncoder = passwordEncoder;
+        }
+        
+        private void add(long lineNumber, UserImportRow row) {
+            chunk.add(Map.entry(lineNumber, row));
+            if (chunk.size() >= batchSize) {
+                flush();
+            }
+        }
+        
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<PendingUser> valid = validate(chunk);
+            valid = removeExisting(valid);
+            valid = encodePasswords(valid);
+            insert(valid);
+            
+            processed += chunk.size();
+            chunk.clear();
+            listener.onProgress(processed, imported, failed);
+        }
+        
+        private List<PendingUser> validate(List<Map.Entry<Long, UserImportRow>> rows) {
+            List<PendingUser> valid = new ArrayList<>(rows.size());
+            Set<String> usernamesInChunk = new HashSet<>();
+            Set<String> emailsInChunk = new HashSet<>();
+            
+            for (Map.Entry<Long, UserImportRow> entry : rows) {
+                long lineNumber = entry.getKey();
+                UserImportRow row = entry.getValue();
+                String username = trimToNull(row.getUsername());
+                Role role = parseRole(row.getRole());
+                if (role == null) {
+                    error(lineNumber, username, "無效的角色: " + row.getRole());
+                    continue;
+                }
+                
+                User user = new User(username, row.getPassword(), trimToNull(row.getFullName()),
+                    trimToNull(row.getEmail()), role);
+                Set<ConstraintViolation<User>> violations = validator.validate(user);
+                if (!violations.isEmpty()) {
+                    error(lineNumber, username, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                    continue;
+                }
+                if (!usernamesInChunk.add(username)) {
+                    error(lineNumber, username, "文件中用戶名重複: " + username);
+                    continue;
+                }
+                if (user.getEmail() != null && !emailsInChunk.add(user.getEmail())) {
+                    error(lineNumber, username, "文件中電子郵件重複: " + user.getEmail());
+                    continue;
+                }
+                valid.add(new PendingUser(lineNumber, user));
+            }
+            return valid;
+        }
+        
+        /**
+         * 布隆過濾器判斷可能已存在的行，用一條 IN 查詢確認後剔除。
+         */
+        private List<PendingUser> removeExisting(List<PendingUser> rows) {
+            List<String> candidateUsernames = new ArrayList<>();
+            List<String> candidateEmails = new ArrayList<>();
+            for (PendingUser row : rows) {
+                if (existing.mightContain(usernameKey(row.user.getUsername()))) {
+                    candidateUsernames.add(row.user.getUsername());
+                }
+                if (row.user.getEmail() != null && existing.mightContain(emailKey(row.user.getEmail()))) {
+                    candidateEmails.add(row.user.getEmail());
+                }
+            }
+            if (candidateUsernames.isEmpty() && candidateEmails.isEmpty()) {
+                return rows;
+            }
+            
+            Set<String> existingUsernames = new HashSet<>();
+            Set<String> existingEmails = new HashSet<>();
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            List<String> conditions = new ArrayList<>();
+            if (!candidateUsernames.isEmpty()) {
+                conditions.add("username IN (:usernames)");
+                params.addValue("usernames", candidateUsernames);
+            }
+            if (!candidateEmails.isEmpty()) {
+                conditions.add("email IN (:emails)");
+                params.addValue("emails", candidateEmails);
+            }
+            namedParameterJdbcTemplate.query(
+                "SELECT username, email FROM users WHERE " + String.join(" OR ", conditions), params, rs -> {
+                    existingUsernames.add(rs.getString(1));
+                    String email = rs.getString(2);
+                    if (email != null) {
+                        existingEmails.add(email);
+                    }
+                });
+            
+            List<PendingUser> remaining = new ArrayList<>(rows.size());
+            for (PendingUser row : rows) {
+                if (existingUsernames.contains(row.user.getUsername())) {
+                    error(row.lineNumber, row.user.getUsername(), "用戶名已存在: " + row.user.getUsername());
+                } else if (row.user.getEmail() != null && existingEmails.contains(row.user.getEmail())) {
+                    error(row.lineNumber, row.user.getUsername(), "電子郵件已存在: " + row.user.getEmail());
+                } else {
+                    remaining.add(row);
+                }
+            }
+            return remaining;
+        }
+        
+        private List<PendingUser> encodePasswords(List<PendingUser> rows) {
+            List<Future<String>> futures = new ArrayList<>(rows.size());
+            for (PendingUser row : rows) {
+                String rawPassword = row.user.getPassword();
+                futures.add(hashPool.submit(() -> BCRYPT_PREFIX + passwordEncoder.encode(rawPassword)));
+            }
+            
+            List<PendingUser> encoded = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                PendingUser row = rows.get(i);
+                try {
+                    row.encodedPassword = futures.get(i).get();
+                    encoded.add(row);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("導入被中斷", e);
+                } catch (ExecutionException e) {
+                    error(row.lineNumber, row.user.getUsername(), "密碼加密失敗: " + e.getCause().getMessage());
+                }
+            }
+            return encoded;
+        }
+        
+        private void insert(List<PendingUser> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            rows.forEach(row -> row.id = nextId());
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL,
+                    rows.stream().map(PendingUser::toInsertArgs).toList()));
+                rows.forEach(this::inserted);
+            } catch (DataAccessException e) {
+                // 例如其他會話在確認之後插入了相同的用戶名或郵箱，逐行重試以找出出錯的行
+                log.debug("批量插入失敗，改為逐行插入: {}", e.getMessage());
+                for (PendingUser row : rows) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status ->
+                            jdbcTemplate.update(INSERT_SQL, row.toInsertArgs()));
+                        inserted(row);
+                    } catch (DuplicateKeyException duplicate) {
+                        error(row.lineNumber, row.user.getUsername(), "用戶名或電子郵件已存在");
+                    } catch (DataIntegrityViolationException invalid) {
+                        error(row.lineNumber, row.user.getUsername(),
+                            "數據不符合數據庫約束: " + invalid.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+        
+        /**
+         * 按 Hibernate pooled 優化器的規則分配 ID：每次取序列值 N，使用 [N - 49, N] 這一段，
+         * 與 JPA 保存的用戶共用同一個序列而不會衝突。
+         */
+        private long nextId() {
+            if (nextId > maxId) {
+                Long hi = jdbcTemplate.queryForObject(NEXT_ID_SQL, Long.class);
+                maxId = hi;
+                nextId = Math.max(1, hi - User.ID_ALLOCATION_SIZE + 1);
+            }
+            return nextId++;
+        }
+        
+        private void inserted(PendingUser row) {
+            imported++;
+            existing.put(usernameKey(row.user.getUsername()));
+            if (row.user.getEmail() != null) {
+                existing.put(emailKey(row.user.getEmail()));
+            }
+        }
+        
+        private void error(long lineNumber, String key, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportError(lineNumber, key, message));
+            }
+        }
+    }
+}
@@ -3,7 +3,9 @@ package com.example.eclass.service;
 import com.example.eclass.entity.Role;
 import com.example.eclass.entity.User;
 import com.example.eclass.repository.UserRepository;
+import com.example.eclass.security.CaffeineUserCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,7 +14,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
-@Transactional
+@Transactional(readOnly = true)
 public class UserService {
     
     @Autowired
@@ -21,6 +23,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private CaffeineUserCache userCache;
+    
     public List<User> findAll() {
         return userRepository.findAll();
     }
@@ -45,6 +50,7 @@ public class UserService {
         return userRepository.findByRoleAndEnabledTrue(Role.STUDENT);
     }
     
+    @Transactional
     public User save(User user) {
         if (user.getId() == null) {
             // 新用戶，加密密碼
@@ -52,14 +58,20 @@ public class UserService {
         } else {
             // 更新用戶，檢查密碼是否需要重新加密
             User existingUser = userRepository.findById(user.getId()).orElse(null);
-            if (existingUser != null && !existingUser.getPassword().equals(user.getPassword())) {
-                // 密碼已更改，需要重新加密
-                user.setPassword(passwordEncoder.encode(user.getPassword()));
+            if (existingUser != null) {
+                // 用戶名可能被修改，舊用戶名的登錄緩存也要失效
+                userCache.evict(existingUser.getUsername());
+                if (!existingUser.getPassword().equals(user.getPassword())) {
+                    // 密碼已更改，需要重新加密
+                    user.setPassword(passwordEncoder.encode(user.getPassword()));
+                }
             }
         }
+        userCache.evict(user.getUsername());
         return userRepository.save(user);
     }
     
+    @Transactional
     public User createUser(String username, String password, String fullName, String email, Role role) {
         if (userRepository.existsByUsername(username)) {
             throw new RuntimeException("用戶名已存在: " + username);
@@ -72,11 +84,15 @@ public class UserService {
         return save(user);
     }
     
+    @Transactional
     public void delete(User user) {
         userRepository.delete(user);
+        userCache.evict(user.getUsername());
     }
     
+    @Transactional
     public void deleteById(Long id) {
+        userRepository.findById(id).ifPresent(user -> userCache.evict(user.getUsername()));
         userRepository.deleteById(id);
     }
     
@@ -96,12 +112,29 @@ public class UserService {
         return userRepository.findByUsernameContainingIgnoreCase(username);
     }
     
+    /**
+     * 按姓名、用戶名、電子郵件和角色在數據庫中篩選，只返回請求的一頁。
+     */
+    public List<User> search(String filter, Role role, int offset, int limit, Sort sort) {
+        return userRepository.search(filter, role, offset, limit, sort);
+    }
+    
+    public long countSearch(String filter, Role role) {
+        return userRepository.countSearch(filter, role);
+    }
+    
+    @Transactional
     public void toggleUserStatus(User user) {
         user.setEnabled(!user.isEnabled());
         userRepository.save(user);
+        userCache.evict(user.getUsername());
+    }
+    
+    public long countAll() {
+        return userRepository.count();
     }
     
     public long countByRole(Role role) {
-        return userRepository.findByRole(role).size();
+        return userRepository.countByRole(role);
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.example.eclass.storage;
+
+import com.example.eclass.entity.Attachment;
+import com.example.eclass.service.AttachmentService;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 附件記錄被刪除時 (包括刪除提交或作業時的級聯刪除)，在事務提交後清理不再被引用的文件。
+ * 由 Hibernate 通過 Spring 容器創建，AttachmentService 延遲獲取以避免與 EntityManagerFactory 循環依賴。
+ */
+public class AttachmentRemovalListener {
+    
+    @Autowired
+    private ObjectProvider<AttachmentService> attachmentService;
+    
+    @PostRemove
+    public void onRemove(Attachment attachment) {
+        attachmentService.getObject().releaseAfterCommit(attachment.getSha256());
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.eclass.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * 以內容 SHA-256 為鍵的本地文件存儲。
+ * 上傳內容邊寫入臨時文件邊計算摘要，不在堆上緩衝整個文件；寫完後按摘要移動到
+ * objects/ab/cd/&lt;sha256&gt;，已存在相同內容時直接丟棄臨時文件，相同文件只保存一份。
+ * 下載時按塊從文件拷貝到響應的輸出流，同樣不把整個文件讀入內存。
+ */
+@Component
+public class AttachmentStore {
+    
+    private static final Logger log = LoggerFactory.getLogger(AttachmentStore.class);
+    
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    
+    /** 存儲根目錄，留空則使用系統臨時目錄下的 eclass-attachments */
+    @Value("${eclass.attachments.dir:}")
+    private String storeDir;
+    
+    private Path objectsDir;
+    private Path tmpDir;
+    
+    @PostConstruct
+    public void open() throws IOException {
+        Path root = storeDir.isBlank()
+            ? Path.of(System.getProperty("java.io.tmpdir"), "eclass-attachments")
+            : Path.of(storeDir);
+        objectsDir = Files.createDirectories(root.resolve("objects"));
+        tmpDir = Files.createDirectories(root.resolve("tmp"));
+        
+        // 上次運行中斷留下的未完成上傳
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(tmpDir)) {
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+            }
+        }
+        log.info("附件存儲目錄: {}", root.toAbsolutePath());
+    }
+    
+    /**
+     * 開始一次上傳，返回的輸出流寫入臨時文件，超過 maxBytes 時拋出 IOException。
+     */
+    public PendingBlob begin(String fileName, String contentType, long maxBytes) throws IOException {
+        return new PendingBlob(Files.createTempFile(tmpDir, "upload-", ".tmp"), fileName, contentType, maxBytes);
+    }
+    
+    /**
+     * 把寫完的臨時文件按摘要放入存儲，返回摘要。
+     */
+    public String commit(PendingBlob blob) throws IOException {
+        blob.close();
+        String sha256 = blob.getSha256();
+        Path target = resolve(sha256);
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            Files.deleteIfExists(blob.file);
+        } else {
+            try {
+                Files.move(blob.file, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(blob.file);
+            }
+        }
+        return sha256;
+    }
+    
+    public void discard(PendingBlob blob) {
+        try {
+            blob.close();
+            Files.deleteIfExists(blob.file);
+        } catch (IOException e) {
+            log.warn("刪除臨時上傳文件失敗: {}", blob.file, e);
+        }
+    }
+    
+    /**
+     * 把文件內容寫到輸出流，返回寫出的字節數。
+     * 下載的目標是 Vaadin 響應的 OutputStream，拿不到底層 socket 通道，內核直接拷貝 (sendfile) 用不上，
+     * 這裡按固定大小的緩衝區分塊拷貝。
+     */
+    public long copyTo(String sha256, OutputStream out) throws IOException {
+        return Files.copy(resolve(sha256), out);
+    }
+    
+    public boolean exists(String sha256) {
+        return Files.exists(resolve(sha256));
+    }
+    
+    public void delete(String sha256) {
+        try {
+            Files.deleteIfExists(resolve(sha256));
+        } catch (IOException e) {
+            log.warn("刪除附件文件失敗: {}", sha256, e);
+        }
+    }
+    
+    private Path resolve(String sha256) {
+        if (sha256 == null || !SHA256.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("無效的文件摘要: " + sha256);
+        }
+        return objectsDir.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+    
+    /**
+     * 正在上傳的文件：寫入的同時計算 SHA-256 並統計大小。
+     */
+    public static final class PendingBlob extends OutputStream {
+        
+        private final Path file;
+        private final String fileName;
+        private final String contentType;
+        private final long maxBytes;
+        private final OutputStream out;
+        private final MessageDigest digest;
+        private long size;
+        private String sha256;
+        
+        private PendingBlob(Path file, String fileName, String contentType, long maxBytes) throws IOException {
+            this.file = file;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.maxBytes = maxBytes;
+            this.out = new BufferedOutputStream(Files.newOutputStream(file), WRITE_BUFFER_SIZE);
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            checkSize(1);
+            out.write(b);
+            digest.update((byte) b);
+            size++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkSize(len);
+            out.write(b, off, len);
+            digest.update(b, off, len);
+            size += len;
+        }
+        
+        private void checkSize(int len) throws IOException {
+            if (sha256 != null) {
+                throw new IOException("上傳已結束");
+            }
+            if (size + len > maxBytes) {
+                throw new IOException("附件超過剩餘配額");
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (sha256 == null) {
+                sha256 = HexFormat.of().formatHex(digest.digest());
+                out.close();
+            }
+        }
+        
+        public String getFileName() {
+            return fileName;
+        }
+        
+        public String getContentType() {
+            return contentType;
+        }
+        
+        public long getSize() {
+            return size;
+        }
+        
+        /** 上傳完成 (close) 後才可用 */
+        public String getSha256() {
+            return sha256;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.eclass.util;
+
+/**
+ * 字符串的布隆過濾器，用於在內存中快速排除「肯定不存在」的值。
+ * mightContain 返回 false 時一定不存在；返回 true 時可能存在，需要再精確確認。
+ */
+public class BloomFilter {
+    
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    
+    /**
+     * @param expectedInsertions 預計插入的元素數量
+     * @param falsePositiveRate  期望的誤判率，例如 0.01
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, m);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        this.bits = new long[(int) ((bitCount + 63) / 64)];
+    }
+    
+    public void put(String value) {
+        long hash1 = fnv1a64(value);
+        long hash2 = mix64(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, bitCount);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+    
+    public boolean mightContain(String value) {
+        long hash1 = fnv1a64(value);
+        long hash2 = mix64(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static long fnv1a64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (z ^ (z >>> 33)) | 1L;
+    }
+}
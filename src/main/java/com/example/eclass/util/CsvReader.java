@@ -0,0 +1,102 @@
+package com.example.eclass.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 逐條讀取 CSV 記錄的流式解析器 (RFC 4180)。
+ * 支持雙引號包圍的字段、字段內的逗號和換行以及 "" 轉義，不會把整個文件讀入內存。
+ */
+public class CsvReader implements Closeable {
+    
+    private final BufferedReader reader;
+    private long lineNumber;
+    private long recordLineNumber;
+    private boolean firstChar = true;
+    
+    public CsvReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+    
+    /**
+     * 讀取下一條記錄，文件結束時返回 null。空行會被跳過。
+     */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        recordLineNumber = lineNumber + 1;
+        
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (firstChar) {
+                firstChar = false;
+                if (c == '\uFEFF') {
+                    continue;
+                }
+            }
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int nextChar = reader.read();
+                    if (nextChar == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (nextChar != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r') {
+                // 交給後面的 \n 處理
+            } else if (c == '\n') {
+                lineNumber++;
+                if (fields.isEmpty() && field.length() == 0) {
+                    recordLineNumber = lineNumber + 1;
+                    any = false;
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+        
+        if (!any && fields.isEmpty() && field.length() == 0) {
+            return null;
+        }
+        lineNumber++;
+        fields.add(field.toString());
+        return fields;
+    }
+    
+    /**
+     * 最近一次 next() 返回的記錄在文件中的起始行號（從 1 開始）。
+     */
+    public long getRecordLineNumber() {
+        return recordLineNumber;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.eclass.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 把 Grid 的 offset/limit 請求轉換成鍵集（seek）分頁。
+ * 每次讀取後記住該頁最後一行作為下一頁的起點，後續請求從最近的已知起點往後 seek，
+ * 數據庫不需要跳過前面的行，深頁和第一頁的代價相同。
+ * 只保存每頁的最後一行，不緩存已讀取的數據；數據變化後應創建新的實例。
+ *
+ * @param <T> 行類型，本身攜帶排序鍵
+ */
+public class KeysetPager<T> {
+    
+    /**
+     * 讀取排在 after 之後的至多 limit 行；after 為 null 時讀取第一頁。
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        List<T> load(T after, int limit);
+    }
+    
+    private final PageLoader<T> loader;
+    
+    // 行號 -> 該行之前的最後一行，0 號位置的起點是 null
+    private final TreeMap<Integer, T> cursors = new TreeMap<>();
+    
+    public KeysetPager(PageLoader<T> loader) {
+        this.loader = loader;
+    }
+    
+    public Stream<T> fetch(int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset 不能小於 0");
+        }
+        if (limit < 1) {
+            return Stream.empty();
+        }
+        
+        // 正常滾動時 offset 恰好是上一頁的結尾；跳躍滾動時從最近的已知起點補讀中間的行
+        Map.Entry<Integer, T> start = cursors.floorEntry(offset);
+        int startOffset = start != null ? start.getKey() : 0;
+        T after = start != null ? start.getValue() : null;
+        int skip = offset - startOffset;
+        
+        List<T> rows = loader.load(after, skip + limit);
+        if (!rows.isEmpty()) {
+            cursors.put(startOffset + rows.size(), rows.get(rows.size() - 1));
+        }
+        return rows.stream().skip(skip);
+    }
+}
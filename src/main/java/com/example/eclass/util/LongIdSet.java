@@ -0,0 +1,48 @@
+package com.example.eclass.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 不可變的 long ID 集合，內部是排序後的 long[]，用二分查找判斷是否包含。
+ * 相比 Set&lt;Long&gt; 不需要為每個 ID 裝箱，適合在 Grid 渲染時頻繁查詢。
+ */
+public final class LongIdSet {
+    
+    private static final LongIdSet EMPTY = new LongIdSet(new long[0]);
+    
+    private final long[] ids;
+    
+    private LongIdSet(long[] sortedIds) {
+        this.ids = sortedIds;
+    }
+    
+    public static LongIdSet empty() {
+        return EMPTY;
+    }
+    
+    public static LongIdSet of(Collection<Long> values) {
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+        long[] sorted = values.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        return new LongIdSet(sorted);
+    }
+    
+    public boolean contains(Long id) {
+        return id != null && Arrays.binarySearch(ids, id) >= 0;
+    }
+    
+    public int size() {
+        return ids.length;
+    }
+    
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "LongIdSet" + Arrays.toString(ids);
+    }
+}
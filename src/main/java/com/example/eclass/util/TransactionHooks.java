@@ -0,0 +1,29 @@
+package com.example.eclass.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事務相關的回調工具。
+ */
+public final class TransactionHooks {
+    
+    private TransactionHooks() {
+    }
+    
+    /**
+     * 在當前事務提交後執行任務；沒有活動事務時立即執行。事務回滾時任務不會執行。
+     */
+    public static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+}
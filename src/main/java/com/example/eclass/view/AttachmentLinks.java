@@ -0,0 +1,67 @@
+package com.example.eclass.view;
+
+import com.example.eclass.entity.Attachment;
+import com.example.eclass.service.AttachmentService;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.html.Anchor;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.server.StreamResource;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 附件下載鏈接列表。文件內容在瀏覽器請求下載時才從附件存儲讀取，不保存在會話中。
+ */
+public class AttachmentLinks extends VerticalLayout {
+    
+    public AttachmentLinks(List<Attachment> attachments, AttachmentService attachmentService) {
+        this(attachments, attachmentService, null);
+    }
+    
+    /**
+     * @param onDelete 不為 null 時每個附件後顯示刪除按鈕
+     */
+    public AttachmentLinks(List<Attachment> attachments, AttachmentService attachmentService,
+                           Consumer<Attachment> onDelete) {
+        setPadding(false);
+        setSpacing(false);
+        
+        for (Attachment attachment : attachments) {
+            StreamResource resource = new StreamResource(attachment.getFileName(),
+                (out, session) -> attachmentService.download(attachment, out));
+            resource.setContentType(attachment.getContentType() != null
+                ? attachment.getContentType() : "application/octet-stream");
+            
+            Anchor link = new Anchor(resource, attachment.getFileName());
+            link.getElement().setAttribute("download", true);
+            
+            Span size = new Span(formatSize(attachment.getSize()));
+            size.getStyle().set("color", "var(--lumo-secondary-text-color)");
+            
+            HorizontalLayout row = new HorizontalLayout(VaadinIcon.PAPERCLIP.create(), link, size);
+            row.setAlignItems(Alignment.CENTER);
+            
+            if (onDelete != null) {
+                Button deleteButton = new Button(VaadinIcon.TRASH.create(), e -> onDelete.accept(attachment));
+                deleteButton.addThemeVariants(ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_TERTIARY, ButtonVariant.LUMO_ERROR);
+                row.add(deleteButton);
+            }
+            add(row);
+        }
+    }
+    
+    public static String formatSize(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -29,10 +29,10 @@ public class HomeView extends Div implements BeforeEnterObserver {
             return;
         }
         
-        // 根據用戶角色重定向到相應的儀表板
-        var user = securityUtils.getAuthenticatedUser();
-        if (user.isPresent()) {
-            Role role = user.get().getRole();
+        // 根據用戶角色重定向到相應的儀表板；角色保存在登錄主體中，不需要載入 User 實體
+        var principal = securityUtils.getAuthenticatedPrincipal();
+        if (principal.isPresent()) {
+            Role role = principal.get().getRole();
             switch (role) {
                 case ADMIN:
                     event.rerouteTo("admin");
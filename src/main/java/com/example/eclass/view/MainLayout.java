@@ -3,6 +3,7 @@ package com.example.eclass.view;
 import com.example.eclass.entity.Role;
 import com.example.eclass.security.SecurityUtils;
 import com.example.eclass.view.admin.AdminDashboardView;
+import com.example.eclass.view.admin.SlowQueryView;
 import com.example.eclass.view.student.StudentDashboardView;
 import com.example.eclass.view.teacher.TeacherDashboardView;
 import com.vaadin.flow.component.applayout.AppLayout;
@@ -77,6 +78,7 @@ public class MainLayout extends AppLayout {
         
         if (securityUtils.hasRole(Role.ADMIN)) {
             nav.addItem(new SideNavItem("管理員儀表板", AdminDashboardView.class, VaadinIcon.DASHBOARD.create()));
+            nav.addItem(new SideNavItem("慢查詢", SlowQueryView.class, VaadinIcon.TIMER.create()));
         } else if (securityUtils.hasRole(Role.TEACHER)) {
             nav.addItem(new SideNavItem("老師儀表板", TeacherDashboardView.class, VaadinIcon.DASHBOARD.create()));
         } else if (securityUtils.hasRole(Role.STUDENT)) {
@@ -1,9 +1,17 @@
 package com.example.eclass.view.admin;
 
+import com.example.eclass.dto.AdminStats;
+import com.example.eclass.dto.CacheRegionStats;
+import com.example.eclass.dto.ImportError;
+import com.example.eclass.dto.ImportResult;
 import com.example.eclass.entity.Role;
 import com.example.eclass.entity.User;
+import com.example.eclass.service.CacheStatisticsService;
+import com.example.eclass.service.DashboardStatsService;
+import com.example.eclass.service.UserImportService;
 import com.example.eclass.service.UserService;
 import com.example.eclass.view.MainLayout;
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.combobox.ComboBox;
@@ -20,16 +28,22 @@ import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.progressbar.ProgressBar;
 import com.vaadin.flow.component.textfield.EmailField;
 import com.vaadin.flow.component.textfield.PasswordField;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.component.upload.Upload;
+import com.vaadin.flow.component.upload.receivers.FileBuffer;
 import com.vaadin.flow.data.binder.Binder;
 import com.vaadin.flow.data.binder.ValidationException;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import jakarta.annotation.security.RolesAllowed;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.File;
+
 @Route(value = "admin", layout = MainLayout.class)
 @PageTitle("管理員儀表板")
 @RolesAllowed("ADMIN")
@@ -38,12 +52,27 @@ public class AdminDashboardView extends VerticalLayout {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+    
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+    
+    @Autowired
+    private UserImportService userImportService;
+    
     private Grid<User> grid;
     private TextField searchField;
     private ComboBox<Role> roleFilter;
     
-    public AdminDashboardView(UserService userService) {
+    public AdminDashboardView(UserService userService,
+                              DashboardStatsService dashboardStatsService,
+                              CacheStatisticsService cacheStatisticsService,
+                              UserImportService userImportService) {
         this.userService = userService;
+        this.dashboardStatsService = dashboardStatsService;
+        this.cacheStatisticsService = cacheStatisticsService;
+        this.userImportService = userImportService;
         setSizeFull();
         
         createHeader();
@@ -57,17 +86,24 @@ public class AdminDashboardView extends VerticalLayout {
         H2 title = new H2("管理員儀表板");
         
         // 統計信息
-        long totalUsers = userService.findAll().size();
-        long teachers = userService.countByRole(Role.TEACHER);
-        long students = userService.countByRole(Role.STUDENT);
+        AdminStats adminStats = dashboardStatsService.getAdminStats();
         
         HorizontalLayout stats = new HorizontalLayout();
         stats.add(
-            createStatCard("總用戶數", String.valueOf(totalUsers), VaadinIcon.USERS),
-            createStatCard("老師數量", String.valueOf(teachers), VaadinIcon.SPECIALIST),
-            createStatCard("學生數量", String.valueOf(students), VaadinIcon.ACADEMY_CAP)
+            createStatCard("總用戶數", String.valueOf(adminStats.getTotalUsers()), VaadinIcon.USERS),
+            createStatCard("老師數量", String.valueOf(adminStats.getTeachers()), VaadinIcon.SPECIALIST),
+            createStatCard("學生數量", String.valueOf(adminStats.getStudents()), VaadinIcon.ACADEMY_CAP)
         );
         
+        if (cacheStatisticsService.isEnabled()) {
+            CacheRegionStats cacheStats = cacheStatisticsService.getTotalStats();
+            stats.add(createStatCard(
+                "緩存命中率",
+                String.format("%.0f%%", cacheStats.getHitRatio() * 100),
+                VaadinIcon.DATABASE
+            ));
+        }
+        
         add(title, stats);
     }
     
@@ -112,11 +148,14 @@ public class AdminDashboardView extends VerticalLayout {
         addUserButton.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
         addUserButton.addClickListener(e -> openUserDialog(null));
         
+        Button importButton = new Button("批量導入", VaadinIcon.UPLOAD.create());
+        importButton.addClickListener(e -> openImportDialog());
+        
         Button refreshButton = new Button("刷新", VaadinIcon.REFRESH.create());
         refreshButton.addClickListener(e -> refreshGrid());
         
         HorizontalLayout toolbar = new HorizontalLayout(
-            searchField, roleFilter, addUserButton, refreshButton
+            searchField, roleFilter, addUserButton, importButton, refreshButton
         );
         toolbar.setAlignItems(Alignment.END);
         
@@ -126,16 +165,28 @@ public class AdminDashboardView extends VerticalLayout {
     private void createGrid() {
         grid = new Grid<>(User.class, false);
         grid.addColumn(User::getId).setHeader("ID").setWidth("80px").setFlexGrow(0);
-        grid.addColumn(User::getUsername).setHeader("用戶名").setSortable(true);
-        grid.addColumn(User::getFullName).setHeader("姓名").setSortable(true);
+        grid.addColumn(User::getUsername).setHeader("用戶名").setSortProperty("username");
+        grid.addColumn(User::getFullName).setHeader("姓名").setSortProperty("fullName");
         grid.addColumn(User::getEmail).setHeader("電子郵件");
-        grid.addColumn(user -> user.getRole().getDisplayName()).setHeader("角色").setSortable(true);
+        grid.addColumn(user -> user.getRole().getDisplayName()).setHeader("角色").setSortProperty("role");
         grid.addColumn(user -> user.isEnabled() ? "啟用" : "禁用")
             .setHeader("狀態")
-            .setSortable(true);
+            .setSortProperty("enabled");
         
         grid.addComponentColumn(this::createActionButtons).setHeader("操作").setFlexGrow(0);
         
+        // 篩選、排序和分頁都交給數據庫，Grid 只持有當前可見的一頁
+        grid.setItems(
+            query -> userService.search(
+                searchField.getValue(),
+                roleFilter.getValue(),
+                query.getOffset(),
+                query.getLimit(),
+                VaadinSpringDataHelpers.toSpringDataSort(query)
+            ).stream(),
+            query -> (int) userService.countSearch(searchField.getValue(), roleFilter.getValue())
+        );
+        
         grid.setSizeFull();
         add(grid);
     }
@@ -240,6 +291,90 @@ public class AdminDashboardView extends VerticalLayout {
         dialog.open();
     }
     
+    private void openImportDialog() {
+        Dialog dialog = new Dialog();
+        dialog.setHeaderTitle("批量導入用戶");
+        dialog.setWidth("700px");
+        
+        Span hint = new Span("支持 CSV (表頭: username,password,fullName,email,role) 或 JSON 對象數組，角色可填 ADMIN/TEACHER/STUDENT 或中文名稱。");
+        hint.getStyle().set("color", "var(--lumo-secondary-text-color)");
+        
+        FileBuffer buffer = new FileBuffer();
+        Upload upload = new Upload(buffer);
+        upload.setAcceptedFileTypes(".csv", ".json");
+        upload.setMaxFileSize(50 * 1024 * 1024);
+        upload.setMaxFiles(1);
+        
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        Span status = new Span();
+        
+        Grid<ImportError> errorGrid = new Grid<>(ImportError.class, false);
+        errorGrid.addColumn(ImportError::getLineNumber).setHeader("行號").setWidth("90px").setFlexGrow(0);
+        errorGrid.addColumn(ImportError::getKey).setHeader("用戶名");
+        errorGrid.addColumn(ImportError::getMessage).setHeader("錯誤").setFlexGrow(3);
+        errorGrid.setHeight("250px");
+        errorGrid.setVisible(false);
+        
+        Button closeButton = new Button("關閉", e -> dialog.close());
+        
+        upload.addSucceededListener(event -> {
+            UI ui = UI.getCurrent();
+            File file = buffer.getFileData().getFile();
+            upload.setVisible(false);
+            closeButton.setEnabled(false);
+            progressBar.setVisible(true);
+            status.setText("正在導入...");
+            // 導入在後台線程執行，輪詢把進度推送到瀏覽器
+            ui.setPollInterval(500);
+            
+            try {
+                userImportService.importUsersAsync(buffer.getInputStream(), event.getFileName(),
+                        (processed, imported, failed) -> ui.access(() -> status.setText(
+                            String.format("已處理 %d 行，成功 %d，失敗 %d", processed, imported, failed))))
+                    .whenComplete((result, ex) -> {
+                        file.delete();
+                        ui.access(() -> {
+                            ui.setPollInterval(-1);
+                            progressBar.setVisible(false);
+                            closeButton.setEnabled(true);
+                            if (ex != null) {
+                                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                                status.setText("導入失敗: " + cause.getMessage());
+                                return;
+                            }
+                            showImportResult(result, status, errorGrid);
+                            refreshGrid();
+                        });
+                    });
+            } catch (RuntimeException ex) {
+                file.delete();
+                ui.setPollInterval(-1);
+                progressBar.setVisible(false);
+                closeButton.setEnabled(true);
+                status.setText("導入失敗: " + ex.getMessage());
+            }
+        });
+        upload.addFileRejectedListener(event -> Notification.show(event.getErrorMessage())
+            .addThemeVariants(NotificationVariant.LUMO_ERROR));
+        
+        dialog.add(new VerticalLayout(hint, upload, progressBar, status, errorGrid));
+        dialog.getFooter().add(closeButton);
+        dialog.open();
+    }
+    
+    private void showImportResult(ImportResult result, Span status, Grid<ImportError> errorGrid) {
+        status.setText(String.format("導入完成：共 %d 行，成功 %d，失敗 %d，用時 %.1f 秒",
+            result.getProcessed(), result.getImported(), result.getFailed(), result.getDurationMillis() / 1000.0));
+        if (!result.getErrors().isEmpty()) {
+            errorGrid.setItems(result.getErrors());
+            errorGrid.setVisible(true);
+        }
+        Notification.show("成功導入 " + result.getImported() + " 個用戶")
+            .addThemeVariants(result.getFailed() == 0 ? NotificationVariant.LUMO_SUCCESS : NotificationVariant.LUMO_CONTRAST);
+    }
+    
     private void toggleUserStatus(User user) {
         userService.toggleUserStatus(user);
         refreshGrid();
@@ -271,22 +406,6 @@ public class AdminDashboardView extends VerticalLayout {
     }
     
     private void refreshGrid() {
-        String searchTerm = searchField.getValue();
-        Role selectedRole = roleFilter.getValue();
-        
-        var users = userService.findAll().stream()
-            .filter(user -> {
-                boolean matchesSearch = searchTerm == null || searchTerm.isEmpty() ||
-                    user.getFullName().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                    user.getUsername().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                    (user.getEmail() != null && user.getEmail().toLowerCase().contains(searchTerm.toLowerCase()));
-                
-                boolean matchesRole = selectedRole == null || user.getRole() == selectedRole;
-                
-                return matchesSearch && matchesRole;
-            })
-            .toList();
-        
-        grid.setItems(users);
+        grid.getDataProvider().refreshAll();
     }
 }
\ No newline at end of file
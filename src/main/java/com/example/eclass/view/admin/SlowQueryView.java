@@ -0,0 +1,76 @@
+package com.example.eclass.view.admin;
+
+import com.example.eclass.dto.SlowQueryStats;
+import com.example.eclass.metrics.SlowQueryLog;
+import com.example.eclass.view.MainLayout;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.H2;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import jakarta.annotation.security.RolesAllowed;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 慢查詢彙總：自啟動 (或上次清空) 以來總耗時最多的慢查詢語句。
+ */
+@Route(value = "admin/slow-queries", layout = MainLayout.class)
+@PageTitle("慢查詢")
+@RolesAllowed("ADMIN")
+public class SlowQueryView extends VerticalLayout {
+    
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+    
+    private Grid<SlowQueryStats> grid;
+    
+    public SlowQueryView(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+        setSizeFull();
+        
+        H2 title = new H2("慢查詢");
+        Span hint = new Span("耗時超過 " + slowQueryLog.getThresholdMillis() + " ms 的語句，按總耗時排序；參數只顯示類型。");
+        hint.getStyle().set("color", "var(--lumo-secondary-text-color)");
+        
+        Button refreshButton = new Button("刷新", VaadinIcon.REFRESH.create());
+        refreshButton.addClickListener(e -> refreshGrid());
+        
+        Button resetButton = new Button("清空", VaadinIcon.TRASH.create());
+        resetButton.addClickListener(e -> {
+            slowQueryLog.reset();
+            refreshGrid();
+        });
+        
+        add(title, hint, new HorizontalLayout(refreshButton, resetButton));
+        createGrid();
+        refreshGrid();
+    }
+    
+    private void createGrid() {
+        grid = new Grid<>(SlowQueryStats.class, false);
+        grid.addColumn(SlowQueryStats::getSql).setHeader("SQL").setFlexGrow(4)
+            .setTooltipGenerator(SlowQueryStats::getSql);
+        grid.addColumn(SlowQueryStats::getCount).setHeader("次數").setWidth("80px").setFlexGrow(0);
+        grid.addColumn(stats -> formatMillis(stats.getTotalMillis())).setHeader("總耗時 (ms)").setFlexGrow(0).setWidth("120px");
+        grid.addColumn(stats -> formatMillis(stats.getAverageMillis())).setHeader("平均 (ms)").setFlexGrow(0).setWidth("110px");
+        grid.addColumn(stats -> formatMillis(stats.getMaxMillis())).setHeader("最長 (ms)").setFlexGrow(0).setWidth("110px");
+        grid.addColumn(stats -> stats.getMaxRows() < 0 ? "-" : String.valueOf(stats.getMaxRows()))
+            .setHeader("最多行數").setFlexGrow(0).setWidth("100px");
+        grid.addColumn(SlowQueryStats::getLastCaller).setHeader("調用方");
+        grid.addColumn(SlowQueryStats::getLastParameters).setHeader("參數");
+        grid.setSizeFull();
+        add(grid);
+    }
+    
+    private void refreshGrid() {
+        grid.setItems(slowQueryLog.getTopStatements());
+    }
+    
+    private static String formatMillis(double millis) {
+        return String.format("%.1f", millis);
+    }
+}
@@ -1,10 +1,21 @@
 package com.example.eclass.view.student;
 
+import com.example.eclass.dto.StudentStats;
+import com.example.eclass.dto.SubmissionBody;
+import com.example.eclass.dto.SubmissionSummary;
 import com.example.eclass.entity.Assignment;
+import com.example.eclass.entity.Attachment;
 import com.example.eclass.entity.Submission;
+import com.example.eclass.entity.User;
 import com.example.eclass.security.SecurityUtils;
 import com.example.eclass.service.AssignmentService;
+import com.example.eclass.service.AttachmentService;
+import com.example.eclass.service.DashboardStatsService;
 import com.example.eclass.service.SubmissionService;
+import com.example.eclass.storage.AttachmentStore.PendingBlob;
+import com.example.eclass.util.KeysetPager;
+import com.example.eclass.util.LongIdSet;
+import com.example.eclass.view.AttachmentLinks;
 import com.example.eclass.view.MainLayout;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
@@ -20,6 +31,8 @@ import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextArea;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.component.upload.Upload;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
@@ -27,7 +40,10 @@ import jakarta.annotation.security.RolesAllowed;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Route(value = "student", layout = MainLayout.class)
@@ -44,15 +60,30 @@ public class StudentDashboardView extends VerticalLayout {
     @Autowired
     private SecurityUtils securityUtils;
     
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+    
+    @Autowired
+    private AttachmentService attachmentService;
+    
     private Grid<Assignment> assignmentGrid;
-    private Grid<Submission> submissionGrid;
+    /** 瀏覽全部作業時可排序的列；搜索結果按相關度排序，這些列在搜索時不可排序 */
+    private List<Grid.Column<Assignment>> sortableAssignmentColumns;
+    private TextField assignmentSearchField;
+    private Grid<SubmissionSummary> submissionGrid;
+    private User currentUser;
+    private LongIdSet submittedAssignmentIds = LongIdSet.empty();
     
     public StudentDashboardView(AssignmentService assignmentService,
                                SubmissionService submissionService,
-                               SecurityUtils securityUtils) {
+                               SecurityUtils securityUtils,
+                               DashboardStatsService dashboardStatsService,
+                               AttachmentService attachmentService) {
         this.assignmentService = assignmentService;
         this.submissionService = submissionService;
         this.securityUtils = securityUtils;
+        this.dashboardStatsService = dashboardStatsService;
+        this.attachmentService = attachmentService;
         
         setSizeFull();
         
@@ -69,15 +100,13 @@ public class StudentDashboardView extends VerticalLayout {
         var currentUser = securityUtils.getAuthenticatedUser().orElse(null);
         if (currentUser != null) {
             // 統計信息
-            long totalAssignments = assignmentService.countAll();
-            long mySubmissions = submissionService.countByStudent(currentUser);
-            long pendingAssignments = totalAssignments - mySubmissions;
+            StudentStats studentStats = dashboardStatsService.getStudentStats(currentUser);
             
             HorizontalLayout stats = new HorizontalLayout();
             stats.add(
-                createStatCard("總作業數", String.valueOf(totalAssignments), VaadinIcon.TASKS),
-                createStatCard("已提交", String.valueOf(mySubmissions), VaadinIcon.CHECK_CIRCLE),
-                createStatCard("待提交", String.valueOf(pendingAssignments), VaadinIcon.CLOCK)
+                createStatCard("總作業數", String.valueOf(studentStats.getTotalAssignments()), VaadinIcon.TASKS),
+                createStatCard("已提交", String.valueOf(studentStats.getSubmitted()), VaadinIcon.CHECK_CIRCLE),
+                createStatCard("待提交", String.valueOf(studentStats.getPending()), VaadinIcon.CLOCK)
             );
             
             add(title, stats);
@@ -115,17 +144,29 @@ public class StudentDashboardView extends VerticalLayout {
     private void createAssignmentSection() {
         H3 sectionTitle = new H3("所有作業");
         
+        assignmentSearchField = new TextField();
+        assignmentSearchField.setPlaceholder("搜索作業標題或描述...");
+        assignmentSearchField.setPrefixComponent(VaadinIcon.SEARCH.create());
+        assignmentSearchField.setClearButtonVisible(true);
+        assignmentSearchField.addValueChangeListener(e -> refreshAssignments());
+        
+        HorizontalLayout header = new HorizontalLayout(sectionTitle, assignmentSearchField);
+        header.setAlignItems(Alignment.CENTER);
+        header.setJustifyContentMode(JustifyContentMode.BETWEEN);
+        header.setWidthFull();
+        
         assignmentGrid = new Grid<>(Assignment.class, false);
-        assignmentGrid.addColumn(Assignment::getTitle).setHeader("作業標題").setSortable(true);
-        assignmentGrid.addColumn(assignment -> assignment.getTeacher().getFullName())
-            .setHeader("老師").setSortable(true);
-        assignmentGrid.addColumn(assignment -> 
-            assignment.getDueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
-        ).setHeader("截止時間").setSortable(true);
+        sortableAssignmentColumns = List.of(
+            assignmentGrid.addColumn(Assignment::getTitle).setHeader("作業標題"),
+            assignmentGrid.addColumn(assignment -> assignment.getTeacher().getFullName())
+                .setHeader("老師"),
+            assignmentGrid.addColumn(assignment -> 
+                assignment.getDueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
+            ).setHeader("截止時間")
+        );
         assignmentGrid.addColumn(new ComponentRenderer<>(assignment -> {
-            var currentUser = securityUtils.getAuthenticatedUser().orElse(null);
             if (currentUser != null) {
-                boolean hasSubmitted = submissionService.hasSubmitted(assignment, currentUser);
+                boolean hasSubmitted = submittedAssignmentIds.contains(assignment.getId());
                 Span status = new Span(hasSubmitted ? "已提交" : "未提交");
                 status.getElement().getThemeList().add(
                     hasSubmitted ? "badge success" : "badge error"
@@ -147,18 +188,19 @@ public class StudentDashboardView extends VerticalLayout {
         
         assignmentGrid.setHeight("300px");
         
-        add(sectionTitle, assignmentGrid);
+        add(header, assignmentGrid);
     }
     
     private void createSubmissionSection() {
         H3 sectionTitle = new H3("我的提交記錄");
         
-        submissionGrid = new Grid<>(Submission.class, false);
-        submissionGrid.addColumn(submission -> submission.getAssignment().getTitle())
-            .setHeader("作業標題").setSortable(true);
+        submissionGrid = new Grid<>(SubmissionSummary.class, false);
+        // 提交記錄按提交時間倒序分頁 (KeysetPager)，列不可排序
+        submissionGrid.addColumn(SubmissionSummary::getAssignmentTitle)
+            .setHeader("作業標題");
         submissionGrid.addColumn(submission -> 
             submission.getSubmittedDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
-        ).setHeader("提交時間").setSortable(true);
+        ).setHeader("提交時間");
         submissionGrid.addColumn(new ComponentRenderer<>(submission -> {
             Span status = new Span(submission.isLate() ? "遲交" : "準時");
             status.getElement().getThemeList().add(
@@ -168,9 +210,9 @@ public class StudentDashboardView extends VerticalLayout {
         })).setHeader("提交狀態");
         submissionGrid.addColumn(submission -> 
             submission.getGrade() != null ? submission.getGrade().toString() : "未評分"
-        ).setHeader("分數").setSortable(true);
+        ).setHeader("分數");
         submissionGrid.addColumn(submission -> 
-            submission.getFeedback() != null && !submission.getFeedback().isEmpty() ? "有評語" : "無評語"
+            submission.isFeedbackGiven() ? "有評語" : "無評語"
         ).setHeader("評語");
         
         submissionGrid.addComponentColumn(this::createSubmissionActionButtons)
@@ -186,9 +228,8 @@ public class StudentDashboardView extends VerticalLayout {
         viewButton.addThemeVariants(ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_TERTIARY);
         viewButton.addClickListener(e -> viewAssignmentDetails(assignment));
         
-        var currentUser = securityUtils.getAuthenticatedUser().orElse(null);
         if (currentUser != null) {
-            boolean hasSubmitted = submissionService.hasSubmitted(assignment, currentUser);
+            boolean hasSubmitted = submittedAssignmentIds.contains(assignment.getId());
             
             Button submitButton = new Button(
                 hasSubmitted ? "重新提交" : "提交作業", 
@@ -209,7 +250,7 @@ public class StudentDashboardView extends VerticalLayout {
         return new HorizontalLayout(viewButton);
     }
     
-    private HorizontalLayout createSubmissionActionButtons(Submission submission) {
+    private HorizontalLayout createSubmissionActionButtons(SubmissionSummary submission) {
         Button viewButton = new Button("查看詳情", VaadinIcon.EYE.create());
         viewButton.addThemeVariants(ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_TERTIARY);
         viewButton.addClickListener(e -> viewSubmissionDetails(submission));
@@ -241,7 +282,7 @@ public class StudentDashboardView extends VerticalLayout {
         // 檢查是否已提交
         var currentUser = securityUtils.getAuthenticatedUser().orElse(null);
         if (currentUser != null) {
-            Optional<Submission> submission = submissionService.findByAssignmentAndStudent(assignment, currentUser);
+            Optional<SubmissionSummary> submission = submissionService.findSummaryByAssignmentAndStudent(assignment, currentUser);
             if (submission.isPresent()) {
                 Span submittedInfo = new Span("✓ 您已於 " + 
                     submission.get().getSubmittedDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) + 
@@ -286,35 +327,106 @@ public class StudentDashboardView extends VerticalLayout {
         
         // 如果已經提交過，顯示之前的內容
         var currentUser = securityUtils.getAuthenticatedUser().orElse(null);
-        if (currentUser != null) {
-            Optional<Submission> existingSubmission = submissionService.findByAssignmentAndStudent(assignment, currentUser);
-            if (existingSubmission.isPresent()) {
-                contentArea.setValue(existingSubmission.get().getContent() != null ? existingSubmission.get().getContent() : "");
-                Span resubmitInfo = new Span("您之前已提交過此作業，重新提交將覆蓋之前的內容。");
-                resubmitInfo.getStyle().set("color", "var(--lumo-warning-color)");
-                layout.add(resubmitInfo);
-            }
+        Optional<Submission> existingSubmission = currentUser != null
+            ? submissionService.findByAssignmentAndStudent(assignment, currentUser)
+            : Optional.empty();
+        if (existingSubmission.isPresent()) {
+            contentArea.setValue(existingSubmission.get().getContent() != null ? existingSubmission.get().getContent() : "");
+            Span resubmitInfo = new Span("您之前已提交過此作業，重新提交將覆蓋之前的內容。");
+            resubmitInfo.getStyle().set("color", "var(--lumo-warning-color)");
+            layout.add(resubmitInfo);
         }
         
         layout.add(contentArea);
         
+        // 附件：上傳內容直接流式寫入附件存儲的臨時文件，點擊提交時才加到提交記錄上
+        // 多個文件可同時上傳，正在接收的文件按文件名區分 (事件只帶文件名)
+        List<PendingBlob> pendingBlobs = new ArrayList<>();
+        Map<String, PendingBlob> receiving = new HashMap<>();
+        long[] remainingQuota = {currentUser != null ? attachmentService.getRemainingQuota(assignment, currentUser) : 0};
+        
+        Span quotaInfo = new Span();
+        quotaInfo.getStyle().set("color", "var(--lumo-secondary-text-color)");
+        Upload upload = new Upload((fileName, mimeType) -> {
+            long pendingBytes = pendingBlobs.stream().mapToLong(PendingBlob::getSize).sum();
+            PendingBlob blob = attachmentService.beginUpload(fileName, mimeType, remainingQuota[0] - pendingBytes);
+            PendingBlob previous = receiving.put(fileName, blob);
+            if (previous != null) {
+                // 同名文件還在上傳中時事件無法區分兩者：丟棄前一個，它的失敗事件會連同這一個一起丟棄，需要重新上傳
+                attachmentService.discard(List.of(previous));
+            }
+            return blob;
+        });
+        upload.addSucceededListener(event -> {
+            PendingBlob blob = receiving.remove(event.getFileName());
+            if (blob != null) {
+                pendingBlobs.add(blob);
+            }
+        });
+        upload.addFailedListener(event -> {
+            PendingBlob blob = receiving.remove(event.getFileName());
+            if (blob != null) {
+                attachmentService.discard(List.of(blob));
+            }
+            Notification.show("上傳失敗: " + (event.getReason() != null ? event.getReason().getMessage() : event.getFileName()))
+                .addThemeVariants(NotificationVariant.LUMO_ERROR);
+        });
+        upload.addFileRejectedListener(event -> Notification.show(event.getErrorMessage())
+            .addThemeVariants(NotificationVariant.LUMO_ERROR));
+        Runnable updateQuota = () -> {
+            quotaInfo.setText("附件剩餘配額: " + AttachmentLinks.formatSize(remainingQuota[0]));
+            upload.setMaxFileSize((int) Math.min(Integer.MAX_VALUE, Math.max(1, remainingQuota[0])));
+        };
+        updateQuota.run();
+        
+        VerticalLayout existingAttachments = new VerticalLayout();
+        existingAttachments.setPadding(false);
+        existingSubmission.ifPresent(submission -> showExistingAttachments(existingAttachments, submission.getId(), () -> {
+            remainingQuota[0] = attachmentService.getRemainingQuota(assignment, currentUser);
+            updateQuota.run();
+        }));
+        
+        layout.add(new Span("附件"), existingAttachments, upload, quotaInfo);
+        
+        // 未提交就關閉對話框時刪除已上傳的臨時文件
+        dialog.addOpenedChangeListener(event -> {
+            if (!event.isOpened()) {
+                attachmentService.discard(pendingBlobs);
+                pendingBlobs.clear();
+                attachmentService.discard(new ArrayList<>(receiving.values()));
+                receiving.clear();
+            }
+        });
+        
         Button submitButton = new Button("提交", e -> {
-            if (contentArea.getValue().trim().isEmpty()) {
-                Notification.show("請輸入作業內容")
+            boolean hasAttachments = !pendingBlobs.isEmpty() || existingSubmission.isPresent()
+                && !attachmentService.findBySubmission(existingSubmission.get().getId()).isEmpty();
+            if (contentArea.getValue().trim().isEmpty() && !hasAttachments) {
+                Notification.show("請輸入作業內容或上傳附件")
                     .addThemeVariants(NotificationVariant.LUMO_ERROR);
                 return;
             }
             
+            // 內容和附件在同一事務中保存，配額超出時內容也不保存；無論成功與否臨時文件都會被丟棄
+            List<PendingBlob> blobs = new ArrayList<>(pendingBlobs);
             try {
                 if (currentUser != null) {
-                    submissionService.updateSubmission(assignment, currentUser, contentArea.getValue());
+                    pendingBlobs.clear();
+                    attachmentService.submitWithAttachments(assignment, currentUser, contentArea.getValue(), blobs);
                     refreshData();
                     dialog.close();
                     Notification.show("作業提交成功")
                         .addThemeVariants(NotificationVariant.LUMO_SUCCESS);
                 }
             } catch (Exception ex) {
-                Notification.show("提交失敗: " + ex.getMessage())
+                String message = "提交失敗: " + ex.getMessage();
+                if (!blobs.isEmpty()) {
+                    upload.clearFileList();
+                    remainingQuota[0] = attachmentService.getRemainingQuota(assignment, currentUser);
+                    updateQuota.run();
+                    message += "，作業內容未保存，請重新上傳附件";
+                }
+                Notification.show(message)
                     .addThemeVariants(NotificationVariant.LUMO_ERROR);
             }
         });
@@ -327,14 +439,38 @@ public class StudentDashboardView extends VerticalLayout {
         dialog.open();
     }
     
-    private void viewSubmissionDetails(Submission submission) {
+    private void showExistingAttachments(VerticalLayout container, Long submissionId, Runnable onDeleted) {
+        container.removeAll();
+        List<Attachment> attachments = attachmentService.findBySubmission(submissionId);
+        container.add(new AttachmentLinks(attachments, attachmentService, attachment -> {
+            try {
+                attachmentService.delete(attachment.getId(), currentUser);
+                onDeleted.run();
+                showExistingAttachments(container, submissionId, onDeleted);
+            } catch (Exception ex) {
+                Notification.show("刪除失敗: " + ex.getMessage())
+                    .addThemeVariants(NotificationVariant.LUMO_ERROR);
+            }
+        }));
+    }
+    
+    private void viewSubmissionDetails(SubmissionSummary submission) {
+        // 列表中只有摘要，正文在這裡按需讀取
+        SubmissionBody body = submissionService.findBody(submission.getId()).orElse(null);
+        if (body == null) {
+            Notification.show("找不到指定的提交記錄")
+                .addThemeVariants(NotificationVariant.LUMO_ERROR);
+            refreshData();
+            return;
+        }
+        
         Dialog dialog = new Dialog();
         dialog.setHeaderTitle("提交詳情");
         dialog.setWidth("600px");
         
         VerticalLayout layout = new VerticalLayout();
         
-        layout.add(new H3(submission.getAssignment().getTitle()));
+        layout.add(new H3(submission.getAssignmentTitle()));
         layout.add(new Span("提交時間: " + submission.getSubmittedDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))));
         layout.add(new Span("狀態: " + (submission.isLate() ? "遲交" : "準時")));
         
@@ -346,9 +482,9 @@ public class StudentDashboardView extends VerticalLayout {
             layout.add(new Span("分數: 未評分"));
         }
         
-        if (submission.getFeedback() != null && !submission.getFeedback().isEmpty()) {
+        if (body.getFeedback() != null && !body.getFeedback().isEmpty()) {
             TextArea feedbackArea = new TextArea("老師評語");
-            feedbackArea.setValue(submission.getFeedback());
+            feedbackArea.setValue(body.getFeedback());
             feedbackArea.setReadOnly(true);
             feedbackArea.setHeight("100px");
             feedbackArea.setWidthFull();
@@ -356,12 +492,17 @@ public class StudentDashboardView extends VerticalLayout {
         }
         
         TextArea contentArea = new TextArea("我的提交內容");
-        contentArea.setValue(submission.getContent() != null ? submission.getContent() : "");
+        contentArea.setValue(body.getContent() != null ? body.getContent() : "");
         contentArea.setReadOnly(true);
         contentArea.setHeight("200px");
         contentArea.setWidthFull();
         layout.add(contentArea);
         
+        List<Attachment> attachments = attachmentService.findBySubmission(submission.getId());
+        if (!attachments.isEmpty()) {
+            layout.add(new Span("附件"), new AttachmentLinks(attachments, attachmentService));
+        }
+        
         Button closeButton = new Button("關閉", e -> dialog.close());
         dialog.getFooter().add(closeButton);
         dialog.add(layout);
@@ -369,13 +510,39 @@ public class StudentDashboardView extends VerticalLayout {
     }
     
     private void refreshData() {
-        List<Assignment> assignments = assignmentService.findAll();
-        assignmentGrid.setItems(assignments);
+        currentUser = securityUtils.getAuthenticatedUser().orElse(null);
+        // 提交狀態和操作按鈕共用同一份已提交作業 ID，每次刷新只查詢一次
+        submittedAssignmentIds = currentUser != null
+            ? submissionService.findSubmittedAssignmentIds(currentUser)
+            : LongIdSet.empty();
+        
+        refreshAssignments();
         
-        var currentUser = securityUtils.getAuthenticatedUser().orElse(null);
         if (currentUser != null) {
-            List<Submission> submissions = submissionService.findByStudent(currentUser);
-            submissionGrid.setItems(submissions);
+            // 提交記錄按需分頁讀取，滾動到底部時再用上一頁最後一行 seek 下一頁
+            User student = currentUser;
+            KeysetPager<SubmissionSummary> pager = new KeysetPager<>(
+                (after, limit) -> submissionService.findSummaryPageByStudent(student, after, limit));
+            submissionGrid.setItems(query -> pager.fetch(query.getOffset(), query.getLimit()));
+        }
+    }
+    
+    private void refreshAssignments() {
+        String searchText = assignmentSearchField.getValue();
+        boolean browsing = searchText == null || searchText.isBlank();
+        if (!browsing) {
+            assignmentGrid.sort(null);
+        }
+        sortableAssignmentColumns.forEach(column -> column.setSortable(browsing));
+        if (browsing) {
+            List<Assignment> assignments = assignmentService.findAll();
+            assignmentGrid.setItems(assignments);
+        } else {
+            // 全文搜索結果按相關度排序，分頁從索引讀取
+            assignmentGrid.setItems(
+                query -> assignmentService.search(searchText, query.getOffset(), query.getLimit()).stream(),
+                query -> assignmentService.countSearch(searchText)
+            );
         }
     }
 }
\ No newline at end of file
@@ -1,10 +1,22 @@
 package com.example.eclass.view.teacher;
 
+import com.example.eclass.dto.ImportError;
+import com.example.eclass.dto.ImportResult;
+import com.example.eclass.dto.SubmissionCounts;
+import com.example.eclass.dto.SubmissionSummary;
+import com.example.eclass.dto.TeacherStats;
 import com.example.eclass.entity.Assignment;
+import com.example.eclass.entity.Attachment;
 import com.example.eclass.entity.Submission;
 import com.example.eclass.security.SecurityUtils;
 import com.example.eclass.service.AssignmentService;
+import com.example.eclass.service.AttachmentService;
+import com.example.eclass.service.DashboardStatsService;
+import com.example.eclass.service.GradeExportService;
+import com.example.eclass.service.GradeImportService;
 import com.example.eclass.service.SubmissionService;
+import com.example.eclass.util.KeysetPager;
+import com.example.eclass.view.AttachmentLinks;
 import com.example.eclass.view.MainLayout;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
@@ -13,6 +25,7 @@ import com.vaadin.flow.component.datetimepicker.DateTimePicker;
 import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.formlayout.FormLayout;
 import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.Anchor;
 import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.html.H3;
 import com.vaadin.flow.component.html.Span;
@@ -22,24 +35,32 @@ import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.textfield.IntegerField;
 import com.vaadin.flow.component.textfield.TextArea;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.component.upload.Upload;
+import com.vaadin.flow.component.upload.receivers.FileBuffer;
 import com.vaadin.flow.data.binder.Binder;
 import com.vaadin.flow.data.binder.ValidationException;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.StreamResource;
 import jakarta.annotation.security.RolesAllowed;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.InputStream;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 
 @Route(value = "teacher", layout = MainLayout.class)
 @PageTitle("老師儀表板")
 @RolesAllowed("TEACHER")
 public class TeacherDashboardView extends VerticalLayout {
     
+    private static final long MB = 1024 * 1024;
+    
     @Autowired
     private AssignmentService assignmentService;
     
@@ -49,15 +70,36 @@ public class TeacherDashboardView extends VerticalLayout {
     @Autowired
     private SecurityUtils securityUtils;
     
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+    
+    @Autowired
+    private GradeImportService gradeImportService;
+    
+    @Autowired
+    private AttachmentService attachmentService;
+    
+    @Autowired
+    private GradeExportService gradeExportService;
+    
     private Grid<Assignment> assignmentGrid;
-    private Grid<Submission> submissionGrid;
+    private Grid<SubmissionSummary> submissionGrid;
+    private Map<Long, SubmissionCounts> submissionCounts = Map.of();
     
     public TeacherDashboardView(AssignmentService assignmentService, 
                                SubmissionService submissionService,
-                               SecurityUtils securityUtils) {
+                               SecurityUtils securityUtils,
+                               DashboardStatsService dashboardStatsService,
+                               GradeImportService gradeImportService,
+                               AttachmentService attachmentService,
+                               GradeExportService gradeExportService) {
         this.assignmentService = assignmentService;
         this.submissionService = submissionService;
         this.securityUtils = securityUtils;
+        this.dashboardStatsService = dashboardStatsService;
+        this.gradeImportService = gradeImportService;
+        this.attachmentService = attachmentService;
+        this.gradeExportService = gradeExportService;
         
         setSizeFull();
         
@@ -74,13 +116,12 @@ public class TeacherDashboardView extends VerticalLayout {
         var currentUser = securityUtils.getAuthenticatedUser().orElse(null);
         if (currentUser != null) {
             // 統計信息
-            long totalAssignments = assignmentService.countByTeacher(currentUser);
-            long ungradedSubmissions = submissionService.countUngradedByTeacher(currentUser);
+            TeacherStats teacherStats = dashboardStatsService.getTeacherStats(currentUser);
             
             HorizontalLayout stats = new HorizontalLayout();
             stats.add(
-                createStatCard("我的作業", String.valueOf(totalAssignments), VaadinIcon.TASKS),
-                createStatCard("待評分", String.valueOf(ungradedSubmissions), VaadinIcon.CLOCK)
+                createStatCard("我的作業", String.valueOf(teacherStats.getAssignments()), VaadinIcon.TASKS),
+                createStatCard("待評分", String.valueOf(teacherStats.getUngraded()), VaadinIcon.CLOCK)
             );
             
             add(title, stats);
@@ -138,7 +179,7 @@ public class TeacherDashboardView extends VerticalLayout {
             assignment.getDueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
         ).setHeader("截止時間").setSortable(true);
         assignmentGrid.addColumn(assignment -> 
-            submissionService.countByAssignment(assignment)
+            submissionCounts.getOrDefault(assignment.getId(), SubmissionCounts.empty(assignment.getId())).getSubmitted()
         ).setHeader("提交數量");
         assignmentGrid.addColumn(new ComponentRenderer<>(assignment -> {
             Span status = new Span(assignment.isOverdue() ? "已過期" : "進行中");
@@ -159,10 +200,15 @@ public class TeacherDashboardView extends VerticalLayout {
     private void createSubmissionSection() {
         H3 sectionTitle = new H3("學生提交");
         
-        submissionGrid = new Grid<>(Submission.class, false);
-        submissionGrid.addColumn(submission -> submission.getAssignment().getTitle())
+        HorizontalLayout header = new HorizontalLayout(sectionTitle, createExportLinks(null));
+        header.setAlignItems(Alignment.CENTER);
+        header.setJustifyContentMode(JustifyContentMode.BETWEEN);
+        header.setWidthFull();
+        
+        submissionGrid = new Grid<>(SubmissionSummary.class, false);
+        submissionGrid.addColumn(SubmissionSummary::getAssignmentTitle)
             .setHeader("作業標題").setSortable(true);
-        submissionGrid.addColumn(submission -> submission.getStudent().getFullName())
+        submissionGrid.addColumn(SubmissionSummary::getStudentName)
             .setHeader("學生姓名").setSortable(true);
         submissionGrid.addColumn(submission -> 
             submission.getSubmittedDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
@@ -183,7 +229,7 @@ public class TeacherDashboardView extends VerticalLayout {
         
         submissionGrid.setHeight("300px");
         
-        add(sectionTitle, submissionGrid);
+        add(header, submissionGrid);
     }
     
     private HorizontalLayout createAssignmentActionButtons(Assignment assignment) {
@@ -195,17 +241,22 @@ public class TeacherDashboardView extends VerticalLayout {
         editButton.addThemeVariants(ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_TERTIARY);
         editButton.addClickListener(e -> openAssignmentDialog(assignment));
         
+        Button importGradesButton = new Button(VaadinIcon.UPLOAD.create());
+        importGradesButton.addThemeVariants(ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_TERTIARY);
+        importGradesButton.setTooltipText("導入成績");
+        importGradesButton.addClickListener(e -> openGradeImportDialog(assignment));
+        
         Button deleteButton = new Button(VaadinIcon.TRASH.create());
         deleteButton.addThemeVariants(ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_TERTIARY, ButtonVariant.LUMO_ERROR);
         deleteButton.addClickListener(e -> confirmDeleteAssignment(assignment));
         
-        return new HorizontalLayout(viewButton, editButton, deleteButton);
+        return new HorizontalLayout(viewButton, editButton, importGradesButton, deleteButton);
     }
     
-    private HorizontalLayout createSubmissionActionButtons(Submission submission) {
+    private HorizontalLayout createSubmissionActionButtons(SubmissionSummary submission) {
         Button gradeButton = new Button(submission.getGrade() != null ? "重新評分" : "評分");
         gradeButton.addThemeVariants(ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_PRIMARY);
-        gradeButton.addClickListener(e -> openGradeDialog(submission));
+        gradeButton.addClickListener(e -> openGradeDialog(submission.getId()));
         
         return new HorizontalLayout(gradeButton);
     }
@@ -221,8 +272,11 @@ public class TeacherDashboardView extends VerticalLayout {
         TextArea descriptionField = new TextArea("作業描述");
         descriptionField.setHeight("150px");
         DateTimePicker dueDateField = new DateTimePicker("截止時間");
+        IntegerField quotaField = new IntegerField("每位學生附件上限 (MB)");
+        quotaField.setMin(1);
+        quotaField.setHelperText("留空使用系統默認值");
         
-        formLayout.add(titleField, descriptionField, dueDateField);
+        formLayout.add(titleField, descriptionField, dueDateField, quotaField);
         
         Binder<Assignment> binder = new Binder<>(Assignment.class);
         binder.forField(titleField)
@@ -233,6 +287,10 @@ public class TeacherDashboardView extends VerticalLayout {
         binder.forField(dueDateField)
             .asRequired("截止時間不能為空")
             .bind(Assignment::getDueDate, Assignment::setDueDate);
+        binder.forField(quotaField)
+            .withValidator(mb -> mb == null || mb > 0, "附件上限必須大於 0")
+            .bind(a -> a.getAttachmentQuotaBytes() != null ? (int) (a.getAttachmentQuotaBytes() / MB) : null,
+                  (a, mb) -> a.setAttachmentQuotaBytes(mb != null ? mb * MB : null));
         
         Assignment editAssignment = assignment != null ? assignment : new Assignment();
         binder.readBean(editAssignment);
@@ -269,7 +327,15 @@ public class TeacherDashboardView extends VerticalLayout {
         dialog.open();
     }
     
-    private void openGradeDialog(Submission submission) {
+    private void openGradeDialog(Long submissionId) {
+        Submission submission = submissionService.findWithDetailsById(submissionId).orElse(null);
+        if (submission == null) {
+            Notification.show("找不到指定的提交記錄")
+                .addThemeVariants(NotificationVariant.LUMO_ERROR);
+            refreshData();
+            return;
+        }
+        
         Dialog dialog = new Dialog();
         dialog.setHeaderTitle("評分作業");
         dialog.setWidth("500px");
@@ -298,7 +364,14 @@ public class TeacherDashboardView extends VerticalLayout {
         }
         feedbackField.setHeight("100px");
         
-        layout.add(contentArea, gradeField, feedbackField);
+        layout.add(contentArea);
+        
+        List<Attachment> attachments = attachmentService.findBySubmission(submission.getId());
+        if (!attachments.isEmpty()) {
+            layout.add(new Span("附件"), new AttachmentLinks(attachments, attachmentService));
+        }
+        
+        layout.add(gradeField, feedbackField);
         
         Button saveButton = new Button("保存評分", e -> {
             try {
@@ -338,14 +411,66 @@ public class TeacherDashboardView extends VerticalLayout {
         dialog.open();
     }
     
+    private void openGradeImportDialog(Assignment assignment) {
+        Dialog dialog = new Dialog();
+        dialog.setHeaderTitle("導入成績: " + assignment.getTitle());
+        dialog.setWidth("700px");
+        
+        Span hint = new Span("CSV 表頭: username (或 submissionId), grade, feedback，可直接使用導出的成績文件。分數為空的行會被跳過，沒有 feedback 列時保留原有評語。");
+        hint.getStyle().set("color", "var(--lumo-secondary-text-color)");
+        
+        FileBuffer buffer = new FileBuffer();
+        Upload upload = new Upload(buffer);
+        upload.setAcceptedFileTypes(".csv");
+        upload.setMaxFileSize(10 * 1024 * 1024);
+        upload.setMaxFiles(1);
+        
+        Span status = new Span();
+        
+        Grid<ImportError> errorGrid = new Grid<>(ImportError.class, false);
+        errorGrid.addColumn(ImportError::getLineNumber).setHeader("行號").setWidth("90px").setFlexGrow(0);
+        errorGrid.addColumn(ImportError::getKey).setHeader("學生");
+        errorGrid.addColumn(ImportError::getMessage).setHeader("錯誤").setFlexGrow(3);
+        errorGrid.setHeight("250px");
+        errorGrid.setVisible(false);
+        
+        upload.addSucceededListener(event -> {
+            var currentUser = securityUtils.getAuthenticatedUser().orElse(null);
+            if (currentUser == null) {
+                return;
+            }
+            try (InputStream input = buffer.getInputStream()) {
+                ImportResult result = gradeImportService.importGrades(currentUser, assignment, input);
+                status.setText(String.format("導入完成：共 %d 行，已評分 %d，失敗 %d",
+                    result.getProcessed(), result.getImported(), result.getFailed()));
+                errorGrid.setItems(result.getErrors());
+                errorGrid.setVisible(!result.getErrors().isEmpty());
+                refreshData();
+                Notification.show("已更新 " + result.getImported() + " 份作業的成績")
+                    .addThemeVariants(result.getFailed() == 0 ? NotificationVariant.LUMO_SUCCESS : NotificationVariant.LUMO_CONTRAST);
+            } catch (Exception ex) {
+                status.setText("導入失敗: " + ex.getMessage());
+            } finally {
+                buffer.getFileData().getFile().delete();
+            }
+        });
+        upload.addFileRejectedListener(event -> Notification.show(event.getErrorMessage())
+            .addThemeVariants(NotificationVariant.LUMO_ERROR));
+        
+        Button closeButton = new Button("關閉", e -> dialog.close());
+        dialog.getFooter().add(closeButton);
+        dialog.add(new VerticalLayout(hint, upload, status, errorGrid));
+        dialog.open();
+    }
+    
     private void viewAssignmentSubmissions(Assignment assignment) {
         Dialog dialog = new Dialog();
         dialog.setHeaderTitle("作業提交情況: " + assignment.getTitle());
         dialog.setWidth("800px");
         dialog.setHeight("600px");
         
-        Grid<Submission> submissionGrid = new Grid<>(Submission.class, false);
-        submissionGrid.addColumn(submission -> submission.getStudent().getFullName())
+        Grid<SubmissionSummary> submissionGrid = new Grid<>(SubmissionSummary.class, false);
+        submissionGrid.addColumn(SubmissionSummary::getStudentName)
             .setHeader("學生姓名");
         submissionGrid.addColumn(submission -> 
             submission.getSubmittedDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
@@ -361,16 +486,52 @@ public class TeacherDashboardView extends VerticalLayout {
             return status;
         })).setHeader("狀態");
         
-        List<Submission> submissions = submissionService.findByAssignment(assignment);
-        submissionGrid.setItems(submissions);
+        KeysetPager<SubmissionSummary> pager = new KeysetPager<>(
+            (after, limit) -> submissionService.findSummaryPageByAssignment(assignment, after, limit));
+        submissionGrid.setItems(query -> pager.fetch(query.getOffset(), query.getLimit()));
         submissionGrid.setSizeFull();
         
         Button closeButton = new Button("關閉", e -> dialog.close());
-        dialog.getFooter().add(closeButton);
+        dialog.getFooter().add(createExportLinks(assignment), closeButton);
         dialog.add(submissionGrid);
         dialog.open();
     }
     
+    /**
+     * 成績導出鏈接。文件在點擊時才生成，數據從數據庫游標直接寫到響應中。
+     *
+     * @param assignment 為 null 時導出所有作業的成績
+     */
+    private HorizontalLayout createExportLinks(Assignment assignment) {
+        var currentUser = securityUtils.getAuthenticatedUser().orElse(null);
+        if (currentUser == null) {
+            return new HorizontalLayout();
+        }
+        String baseName = assignment != null ? "grades-assignment-" + assignment.getId() : "grades";
+        
+        StreamResource csv = new StreamResource(baseName + ".csv",
+            (out, session) -> gradeExportService.writeCsv(currentUser, assignment, out));
+        csv.setContentType("text/csv; charset=UTF-8");
+        
+        StreamResource xlsx = new StreamResource(baseName + ".xlsx",
+            (out, session) -> gradeExportService.writeXlsx(currentUser, assignment, out));
+        xlsx.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        
+        return new HorizontalLayout(
+            createDownloadLink(csv, "導出 CSV"),
+            createDownloadLink(xlsx, "導出 Excel")
+        );
+    }
+    
+    private Anchor createDownloadLink(StreamResource resource, String text) {
+        Anchor link = new Anchor(resource, "");
+        link.getElement().setAttribute("download", true);
+        Button button = new Button(text, VaadinIcon.DOWNLOAD.create());
+        button.addThemeVariants(ButtonVariant.LUMO_SMALL);
+        link.add(button);
+        return link;
+    }
+    
     private void confirmDeleteAssignment(Assignment assignment) {
         ConfirmDialog dialog = new ConfirmDialog();
         dialog.setHeader("確認刪除");
@@ -398,9 +559,11 @@ public class TeacherDashboardView extends VerticalLayout {
         var currentUser = securityUtils.getAuthenticatedUser().orElse(null);
         if (currentUser != null) {
             List<Assignment> assignments = assignmentService.findByTeacher(currentUser);
+            // 提交數量一次分組查詢取得，避免每行一條 COUNT
+            submissionCounts = submissionService.countByAssignments(assignments);
             assignmentGrid.setItems(assignments);
             
-            List<Submission> submissions = submissionService.findByTeacher(currentUser);
+            List<SubmissionSummary> submissions = submissionService.findSummariesByTeacher(currentUser);
             submissionGrid.setItems(submissions);
         }
     }
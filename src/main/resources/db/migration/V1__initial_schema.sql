@@ -0,0 +1,53 @@
+-- E-Class 初始數據庫結構
+-- 由 Flyway 在啟動時執行，取代 spring.jpa.hibernate.ddl-auto=create-drop
+
+CREATE TABLE users (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username    VARCHAR(255) NOT NULL,
+    password    VARCHAR(255) NOT NULL,
+    full_name   VARCHAR(255) NOT NULL,
+    email       VARCHAR(255),
+    role        VARCHAR(255) NOT NULL CHECK (role IN ('ADMIN', 'TEACHER', 'STUDENT')),
+    enabled     BOOLEAN NOT NULL,
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+-- 管理員列表按角色篩選
+CREATE INDEX idx_users_role ON users (role);
+
+CREATE TABLE assignments (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title         VARCHAR(255) NOT NULL,
+    description   TEXT,
+    due_date      TIMESTAMP(6) NOT NULL,
+    created_date  TIMESTAMP(6) NOT NULL,
+    teacher_id    BIGINT NOT NULL,
+    CONSTRAINT fk_assignments_teacher FOREIGN KEY (teacher_id) REFERENCES users (id)
+);
+
+-- findByTeacherOrderByCreatedDateDesc / countByTeacher
+CREATE INDEX idx_assignments_teacher_created ON assignments (teacher_id, created_date DESC);
+-- findAllByOrderByCreatedDateDesc
+CREATE INDEX idx_assignments_created ON assignments (created_date DESC);
+-- findUpcomingAssignments / findOverdueAssignments / findByDueDateBefore / findByDueDateAfter
+CREATE INDEX idx_assignments_due_date ON assignments (due_date);
+
+CREATE TABLE submissions (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    content         TEXT,
+    submitted_date  TIMESTAMP(6) NOT NULL,
+    assignment_id   BIGINT NOT NULL,
+    student_id      BIGINT NOT NULL,
+    grade           INTEGER,
+    feedback        TEXT,
+    CONSTRAINT fk_submissions_assignment FOREIGN KEY (assignment_id) REFERENCES assignments (id),
+    CONSTRAINT fk_submissions_student FOREIGN KEY (student_id) REFERENCES users (id),
+    -- 每個學生對每個作業只能有一條提交記錄，同時服務 findByAssignmentAndStudent
+    CONSTRAINT uk_submissions_assignment_student UNIQUE (assignment_id, student_id)
+);
+
+-- findByStudentOrderBySubmittedDateDesc / countByStudent
+CREATE INDEX idx_submissions_student_submitted ON submissions (student_id, submitted_date DESC);
+-- findByAssignmentOrderBySubmittedDateDesc / countByAssignment
+CREATE INDEX idx_submissions_assignment_submitted ON submissions (assignment_id, submitted_date DESC);
@@ -0,0 +1,16 @@
+-- 主鍵改為序列生成，配合 Hibernate pooled 優化器 (allocationSize = 50)
+-- IDENTITY 主鍵要求每次 INSERT 後立即取回生成的 ID，Hibernate 因此無法批量插入
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE assignments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE submissions_seq START WITH 1 INCREMENT BY 50;
+
+-- pooled 優化器把序列值 N 視為 [N - 49, N] 這一段 ID 的上界，已有數據時從 MAX(id) + 50 開始
+ALTER SEQUENCE users_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM users);
+ALTER SEQUENCE assignments_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM assignments);
+ALTER SEQUENCE submissions_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM submissions);
+
+-- 不再允許由數據庫自動分配 ID，避免與序列分配的號段衝突
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE assignments ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE submissions ALTER COLUMN id DROP IDENTITY;
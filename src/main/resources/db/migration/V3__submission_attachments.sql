@@ -0,0 +1,22 @@
+-- 提交附件：文件內容按 SHA-256 存放在本地文件存儲中，表中只保存元數據和摘要
+
+CREATE SEQUENCE attachments_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE attachments (
+    id             BIGINT PRIMARY KEY,
+    submission_id  BIGINT NOT NULL,
+    file_name      VARCHAR(255) NOT NULL,
+    content_type   VARCHAR(255),
+    size_bytes     BIGINT NOT NULL,
+    sha256         VARCHAR(64) NOT NULL,
+    uploaded_date  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_attachments_submission FOREIGN KEY (submission_id) REFERENCES submissions (id)
+);
+
+-- 按提交列出附件 / 計算配額用量
+CREATE INDEX idx_attachments_submission ON attachments (submission_id);
+-- 刪除附件後判斷文件內容是否仍被引用
+CREATE INDEX idx_attachments_sha256 ON attachments (sha256);
+
+-- 每位學生在該作業下的附件總大小上限，NULL 表示使用系統默認值
+ALTER TABLE assignments ADD COLUMN attachment_quota_bytes BIGINT;
@@ -0,0 +1,9 @@
+-- 提交記錄列表按 (submitted_date, id) 做鍵集分頁，索引帶上 id 讓同一時間的記錄也能直接 seek
+
+DROP INDEX idx_submissions_student_submitted;
+
+CREATE INDEX idx_submissions_student_submitted ON submissions (student_id, submitted_date DESC, id DESC);
+
+DROP INDEX idx_submissions_assignment_submitted;
+
+CREATE INDEX idx_submissions_assignment_submitted ON submissions (assignment_id, submitted_date DESC, id DESC);
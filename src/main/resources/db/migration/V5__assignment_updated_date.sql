@@ -0,0 +1,7 @@
+-- 作業最後修改時間：全文索引把已提交的最大值記錄在索引提交數據中，啟動時與數據庫比較，判斷磁盤索引是否落後
+
+ALTER TABLE assignments ADD COLUMN updated_date TIMESTAMP(6);
+
+UPDATE assignments SET updated_date = created_date;
+
+ALTER TABLE assignments ALTER COLUMN updated_date SET NOT NULL;
@@ -0,0 +1,11 @@
+-- 測試數據生成器 (synthetic-data profile) 的完成標記：全部數據寫完後按用戶名前綴插入一行。
+-- 生成的用戶存在而沒有標記，說明上次生成中途中斷
+
+CREATE TABLE synthetic_data_runs (
+    username_prefix VARCHAR(50) PRIMARY KEY,
+    completed_date  TIMESTAMP(6) NOT NULL
+);
+
+-- 加入標記之前生成的數據按已完成處理 (默認前綴)
+INSERT INTO synthetic_data_runs (username_prefix, completed_date)
+SELECT 'syn_', CURRENT_TIMESTAMP FROM users WHERE username = 'syn_teacher0001';
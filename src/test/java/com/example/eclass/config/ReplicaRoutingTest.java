@@ -0,0 +1,66 @@
+package com.example.eclass.config;
+
+import com.example.eclass.service.AssignmentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 讀寫分離：只讀事務落在從庫實例上，讀寫事務落在主庫上，從庫通過鏈接表讀到主庫的數據。
+ * 主庫和從庫都換成本測試專用的內存庫名，避免和其他測試緩存的應用上下文共用同一個 eclassdb。
+ */
+@SpringBootTest(properties = {
+    "server.port=0",
+    "management.server.port=-1",
+    "spring.datasource.url=jdbc:h2:mem:routing_primary",
+    "eclass.datasource.replica.jdbc-url=jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("replica")
+class ReplicaRoutingTest {
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private AssignmentService assignmentService;
+    
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertEquals("ROUTING_PRIMARY", query(false, "SELECT DATABASE()", String.class));
+        assertEquals("ROUTING_REPLICA", query(true, "SELECT DATABASE()", String.class));
+    }
+    
+    @Test
+    void replicaSeesPrimaryData() {
+        assertEquals(query(false, "SELECT COUNT(*) FROM assignments", Long.class),
+            query(true, "SELECT COUNT(*) FROM assignments", Long.class));
+        assertFalse(assignmentService.findAll().isEmpty());
+    }
+    
+    @Test
+    void replicaRejectsWrites() {
+        assertThrows(RuntimeException.class, () -> inTransaction(true).executeWithoutResult(status ->
+            jdbcTemplate.update("UPDATE assignments SET title = title")));
+    }
+    
+    private <T> T query(boolean readOnly, String sql, Class<T> type) {
+        return inTransaction(readOnly).execute(status -> jdbcTemplate.queryForObject(sql, type));
+    }
+    
+    private TransactionTemplate inTransaction(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template;
+    }
+}
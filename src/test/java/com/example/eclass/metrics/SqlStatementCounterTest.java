@@ -0,0 +1,54 @@
+package com.example.eclass.metrics;
+
+import com.example.eclass.entity.Assignment;
+import com.example.eclass.service.AssignmentService;
+import com.example.eclass.service.SubmissionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SQL 語句計數：README 中「SQL 預算」一節的示例，以及 JdbcTemplate 語句同樣經過 SqlCaptureDataSource 計數。
+ */
+@SpringBootTest(properties = {"server.port=0", "management.server.port=-1"})
+class SqlStatementCounterTest {
+    
+    @Autowired
+    private AssignmentService assignmentService;
+    
+    @Autowired
+    private SubmissionService submissionService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void submissionSummaryPageIsOneQuery() {
+        Assignment assignment = assignmentService.findAll().get(0);
+        
+        try (SqlStatementCounter counter = SqlStatementCounter.start()) {
+            submissionService.findSummaryPageByAssignment(assignment, null, 50);
+            counter.assertAtMost(1);
+            assertEquals(1, counter.getTotal());
+        }
+    }
+    
+    @Test
+    void jdbcTemplateStatementsAreCounted() {
+        try (SqlStatementCounter outer = SqlStatementCounter.start()) {
+            try (SqlStatementCounter inner = SqlStatementCounter.start()) {
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM submissions", Long.class);
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM submissions", Long.class);
+                assertEquals(2, inner.getTotal());
+                assertEquals(2, inner.getMaxRepeats());
+                assertThrows(AssertionError.class, () -> inner.assertRepeatsAtMost(1));
+            }
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM assignments", Long.class);
+            assertEquals(3, outer.getTotal());
+        }
+    }
+}
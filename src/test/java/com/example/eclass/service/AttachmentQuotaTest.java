@@ -0,0 +1,113 @@
+package com.example.eclass.service;
+
+import com.example.eclass.entity.Assignment;
+import com.example.eclass.entity.Role;
+import com.example.eclass.entity.Submission;
+import com.example.eclass.entity.User;
+import com.example.eclass.repository.AttachmentRepository;
+import com.example.eclass.storage.AttachmentStore.PendingBlob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 附件配額：同一提交上並發的兩次上傳合計超過配額時，只有一次成功；
+ * 內容和附件一起提交時，附件超出配額則內容也不保存。
+ */
+@SpringBootTest(properties = {"server.port=0", "management.server.port=-1"})
+class AttachmentQuotaTest {
+    
+    private static final long QUOTA = 1000;
+    private static final int FILE_SIZE = 600;
+    
+    @Autowired
+    private AttachmentService attachmentService;
+    
+    @Autowired
+    private AssignmentService assignmentService;
+    
+    @Autowired
+    private SubmissionService submissionService;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+    
+    @Test
+    void concurrentAttachmentsStayWithinQuota() throws Exception {
+        User student = userService.createUser("quota_student", "student123", "配額測試學生", null, Role.STUDENT);
+        Submission submission = submissionService.submitAssignment(createAssignment(), student, "內容");
+        
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                PendingBlob blob = upload("file" + i + ".txt");
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        attachmentService.attach(submission.getId(), student, List.of(blob));
+                        return true;
+                    } catch (RuntimeException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            
+            int succeeded = 0;
+            for (Future<Boolean> result : results) {
+                succeeded += result.get() ? 1 : 0;
+            }
+            assertEquals(1, succeeded);
+            assertEquals(FILE_SIZE, attachmentRepository.sumSizeBySubmissionId(submission.getId()));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    @Test
+    void contentIsNotSavedWhenAttachmentsExceedQuota() throws Exception {
+        User student = userService.createUser("quota_student2", "student123", "配額測試學生", null, Role.STUDENT);
+        Assignment assignment = createAssignment();
+        Submission submission = submissionService.submitAssignment(assignment, student, "原內容");
+        attachmentService.attach(submission.getId(), student, List.of(upload("first.txt")));
+        
+        PendingBlob second = upload("second.txt");
+        assertThrows(RuntimeException.class, () ->
+            attachmentService.submitWithAttachments(assignment, student, "新內容", List.of(second)));
+        
+        assertEquals("原內容", submissionService.findById(submission.getId()).orElseThrow().getContent());
+        assertEquals(FILE_SIZE, attachmentRepository.sumSizeBySubmissionId(submission.getId()));
+    }
+    
+    private Assignment createAssignment() {
+        User teacher = userService.findByUsername("teacher1").orElseThrow();
+        Assignment assignment = new Assignment("配額測試作業", "描述", LocalDateTime.now().plusDays(7), teacher);
+        assignment.setAttachmentQuotaBytes(QUOTA);
+        return assignmentService.save(assignment);
+    }
+    
+    private PendingBlob upload(String fileName) throws IOException {
+        PendingBlob blob = attachmentService.beginUpload(fileName, "text/plain", QUOTA);
+        try (blob) {
+            blob.write(new byte[FILE_SIZE]);
+        }
+        return blob;
+    }
+}